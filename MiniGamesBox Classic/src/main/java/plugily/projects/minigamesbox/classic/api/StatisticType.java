@@ -45,6 +45,7 @@ public class StatisticType {
   private final boolean persistent;
   private final String databaseParameters;
   private final boolean protectedStatistic;
+  private volatile int index = -1;
 
 
   public StatisticType(String name, boolean persistent, String databaseParameters, boolean protectedStatistic) {
@@ -83,6 +84,17 @@ public class StatisticType {
     return protectedStatistic;
   }
 
+  /**
+   * @return dense index assigned on registration in {@link StatsStorage}, -1 if not registered
+   */
+  public int getIndex() {
+    return index;
+  }
+
+  void setIndex(int index) {
+    this.index = index;
+  }
+
   public static Map<String, StatisticType> getStatistics() {
     return Collections.unmodifiableMap(statistics);
   }
@@ -21,9 +21,11 @@ import org.bukkit.entity.Player;
 import plugily.projects.minigamesbox.classic.PluginMain;
 import plugily.projects.minigamesbox.classic.arena.PluginArena;
 import plugily.projects.minigamesbox.classic.handlers.placeholder.Placeholder;
+import plugily.projects.minigamesbox.classic.user.LeaderboardIndex;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -38,14 +40,18 @@ public class StatsStorage {
   private final PluginMain plugin;
 
   private final Map<String, StatisticType> statistics = new HashMap<>();
+  private int nextIndex = 0;
+  private final LeaderboardIndex leaderboardIndex;
 
   public StatsStorage(PluginMain plugin) {
     this.plugin = plugin;
+    this.leaderboardIndex = new LeaderboardIndex(plugin);
     loadStats();
   }
 
   private void loadStats() {
     StatisticType.getStatistics().forEach((s, statisticType) -> {
+      assignIndex(statisticType);
       statistics.put(s, statisticType);
       loadExternals(statisticType);
     });
@@ -66,6 +72,19 @@ public class StatsStorage {
         return Integer.toString(getUserStats(player, statisticType));
       }
     });
+    if(statisticType.isPersistent()) {
+      plugin.getPlaceholderManager().registerPlaceholder(new Placeholder("user_rank_" + statisticType.getName(), Placeholder.PlaceholderExecutor.ALL) {
+        @Override
+        public String getValue(Player player) {
+          return Integer.toString(leaderboardIndex.getRank(player.getUniqueId(), statisticType));
+        }
+
+        @Override
+        public String getValue(Player player, PluginArena arena) {
+          return getValue(player);
+        }
+      });
+    }
   }
 
   /**
@@ -78,6 +97,29 @@ public class StatsStorage {
     return plugin.getUserManager().getDatabase().getStats(stat);
   }
 
+  /**
+   * Get a page of the best players of a statistic straight from the storage
+   *
+   * @param stat   Statistic type to get (kills, deaths etc.)
+   * @param limit  maximum amount of entries
+   * @param offset amount of best players to skip
+   * @return entries of UUID and value ordered from highest to lowest value
+   */
+  public List<Map.Entry<UUID, Integer>> getTopStats(StatisticType stat, int limit, int offset) {
+    return plugin.getUserManager().getDatabase().getTopStats(stat, limit, offset);
+  }
+
+  /**
+   * Get the stored position of a player for a statistic
+   *
+   * @param uuid the UUID of the player
+   * @param stat Statistic type to get (kills, deaths etc.)
+   * @return position starting at 1, 0 if nothing is stored for the player
+   */
+  public int getRank(UUID uuid, StatisticType stat) {
+    return plugin.getUserManager().getDatabase().getRank(uuid, stat);
+  }
+
   /**
    * Get user statistic based on StatisticType
    *
@@ -134,10 +176,25 @@ public class StatsStorage {
     if(statistics.containsKey(key)) {
       throw new IllegalStateException("Statistic with key " + key + " was already registered");
     }
+    assignIndex(statisticType);
     loadExternals(statisticType);
     statistics.put(key, statisticType);
   }
 
+  private void assignIndex(StatisticType statisticType) {
+    //indexes are never reused so values of an unregistered statistic can't leak into a new one
+    if(statisticType.getIndex() < 0) {
+      statisticType.setIndex(nextIndex++);
+    }
+  }
+
+  /**
+   * @return amount of indexes handed out to statistics, size for per user statistic tables
+   */
+  public int getStatisticCapacity() {
+    return nextIndex;
+  }
+
   /**
    * Remove statistics that are not protected
    *
@@ -153,6 +210,7 @@ public class StatsStorage {
     }
     if(statisticType.isPersistent()) {
       plugin.getUserManager().getDatabase().dropColumn(statisticType.getName());
+      leaderboardIndex.removeStatistic(statisticType);
     }
     statistics.remove(name);
   }
@@ -161,5 +219,15 @@ public class StatsStorage {
     return Collections.unmodifiableMap(statistics);
   }
 
+  /**
+   * Live ranking of all persistent statistics, use it instead of {@link #getStats(StatisticType)}
+   * to show top players or positions
+   *
+   * @return the leaderboard index
+   */
+  public LeaderboardIndex getLeaderboardIndex() {
+    return leaderboardIndex;
+  }
+
 
 }
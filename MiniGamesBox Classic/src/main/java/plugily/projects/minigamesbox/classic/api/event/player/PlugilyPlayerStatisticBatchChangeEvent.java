@@ -0,0 +1,74 @@
+/*
+ *  MiniGamesBox - Library box with massive content that could be seen as minigames core.
+ *  Copyright (C) 2023 Plugily Projects - maintained by Tigerpanzer_02 and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package plugily.projects.minigamesbox.classic.api.event.player;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.HandlerList;
+import plugily.projects.minigamesbox.classic.api.StatisticType;
+import plugily.projects.minigamesbox.classic.api.event.PlugilyEvent;
+import plugily.projects.minigamesbox.classic.arena.PluginArena;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Called once per tick and player with all statistics that changed in that tick,
+ * after the single {@link PlugilyPlayerStatisticChangeEvent}s were called
+ */
+public class PlugilyPlayerStatisticBatchChangeEvent extends PlugilyEvent {
+
+  private static final HandlerList HANDLERS = new HandlerList();
+  private final Player player;
+  private final Map<StatisticType, Integer> values;
+  private final Map<StatisticType, Integer> deltas;
+
+  public PlugilyPlayerStatisticBatchChangeEvent(PluginArena eventArena, Player player, Map<StatisticType, Integer> values, Map<StatisticType, Integer> deltas) {
+    super(eventArena);
+    this.player = player;
+    this.values = Collections.unmodifiableMap(values);
+    this.deltas = Collections.unmodifiableMap(deltas);
+  }
+
+  public static HandlerList getHandlerList() {
+    return HANDLERS;
+  }
+
+  @Override
+  public HandlerList getHandlers() {
+    return HANDLERS;
+  }
+
+  public Player getPlayer() {
+    return player;
+  }
+
+  /**
+   * @return new value of every changed statistic
+   */
+  public Map<StatisticType, Integer> getValues() {
+    return values;
+  }
+
+  /**
+   * @return difference between the value before the first and after the last change of this tick
+   */
+  public Map<StatisticType, Integer> getDeltas() {
+    return deltas;
+  }
+}
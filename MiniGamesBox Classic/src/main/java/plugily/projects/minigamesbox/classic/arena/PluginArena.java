@@ -38,17 +38,19 @@ import plugily.projects.minigamesbox.classic.arena.states.PluginInGameState;
 import plugily.projects.minigamesbox.classic.arena.states.PluginRestartingState;
 import plugily.projects.minigamesbox.classic.arena.states.PluginStartingState;
 import plugily.projects.minigamesbox.classic.arena.states.PluginWaitingState;
-import plugily.projects.minigamesbox.classic.user.User;
+import plugily.projects.minigamesbox.classic.handlers.placeholder.ArenaPlaceholderCache;
 import plugily.projects.minigamesbox.classic.utils.configuration.ConfigUtils;
 import plugily.projects.minigamesbox.classic.utils.version.VersionUtils;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author Tigerpanzer_02
@@ -61,6 +63,11 @@ public class PluginArena extends BukkitRunnable {
   private final String id;
 
   private final Set<Player> players = new HashSet<>();
+  //players of the arena split by spectator state, concurrent as placeholders may be read async
+  private final Set<Player> playersLeft = ConcurrentHashMap.newKeySet();
+  private final Set<Player> spectators = ConcurrentHashMap.newKeySet();
+  private final Set<Player> playersLeftView = Collections.unmodifiableSet(playersLeft);
+  private final Set<Player> spectatorsView = Collections.unmodifiableSet(spectators);
 
   //all arena values that are integers, contains constant and floating values
   private Map<String, ArenaOption> arenaOptions = new HashMap<>();
@@ -69,6 +76,8 @@ public class PluginArena extends BukkitRunnable {
   //all handlers for all game states, we don't include them all in one runnable because it would be too big
   private final Map<ArenaState, ArenaStateHandler> gameStateHandlers = new EnumMap<>(ArenaState.class);
 
+  private final ArenaPlaceholderCache placeholderCache = new ArenaPlaceholderCache();
+
   private PluginScoreboardManager scoreboardManager;
   private BossbarManager bossbarManager;
   private PluginMapRestorerManager mapRestorerManager;
@@ -130,6 +139,7 @@ public class PluginArena extends BukkitRunnable {
       throw new IllegalStateException("Option with name " + name + " does not exist");
     }
     arenaOption.setValue(value);
+    placeholderCache.invalidate();
   }
 
   public void changeArenaOptionBy(String name, int value) {
@@ -140,6 +150,7 @@ public class PluginArena extends BukkitRunnable {
     }
 
     arenaOption.setValue(arenaOption.getValue() + value);
+    placeholderCache.invalidate();
   }
 
 
@@ -286,6 +297,7 @@ public class PluginArena extends BukkitRunnable {
    */
   public void setMapName(String mapName) {
     this.mapName = mapName;
+    placeholderCache.invalidate();
   }
 
   /**
@@ -349,6 +361,7 @@ public class PluginArena extends BukkitRunnable {
   public void setArenaState(@NotNull ArenaState arenaState, boolean forceArenaState) {
     this.arenaState = arenaState;
     this.forceArenaState = forceArenaState;
+    placeholderCache.invalidate();
     plugin.getDebugger().performance("ArenaUpdate", "Arena {0} Changed ArenaState to {1} {2}", getId(), arenaState, forceArenaState);
     Bukkit.getPluginManager().callEvent(new PlugilyGameStateChangeEvent(this, arenaState));
     plugin.getSignManager().updateSigns();
@@ -365,6 +378,7 @@ public class PluginArena extends BukkitRunnable {
   public void setArenaState(@NotNull ArenaState arenaState) {
     this.arenaState = arenaState;
     this.forceArenaState = true;
+    placeholderCache.invalidate();
     plugin.getDebugger().performance("ArenaUpdate", "Arena {0} Changed ArenaState to {1} {2}", getId(), arenaState, forceArenaState);
     Bukkit.getPluginManager().callEvent(new PlugilyGameStateChangeEvent(this, arenaState));
     plugin.getSignManager().updateSigns();
@@ -449,17 +463,82 @@ public class PluginArena extends BukkitRunnable {
   }
 
 
+  /**
+   * Get the players of the arena which are not spectating.
+   * Use {@link #getAlivePlayers()} or {@link #isAlive(Player)} to avoid the copy
+   *
+   * @return new modifiable list of the players
+   */
   @NotNull
   public List<Player> getPlayersLeft() {
-    List<Player> playersLeft = new ArrayList<>();
+    return new ArrayList<>(playersLeft);
+  }
 
-    for(User user : plugin.getUserManager().getUsers(this)) {
-      if(!user.isSpectator()) {
-        playersLeft.add(user.getPlayer());
-      }
+  /**
+   * Get the players of the arena which are not spectating
+   *
+   * @return read only live view, safe to use while it changes
+   */
+  @NotNull
+  public Set<Player> getAlivePlayers() {
+    return playersLeftView;
+  }
+
+  /**
+   * Get the players of the arena which are spectating
+   *
+   * @return read only live view, safe to use while it changes
+   */
+  @NotNull
+  public Set<Player> getSpectators() {
+    return spectatorsView;
+  }
+
+  public boolean isAlive(Player player) {
+    return playersLeft.contains(player);
+  }
+
+  public boolean isSpectator(Player player) {
+    return spectators.contains(player);
+  }
+
+  /**
+   * Moves the player into the players left or the spectators of this arena,
+   * called on join and whenever the spectator state of the user changes
+   *
+   * @param player    player of this arena
+   * @param spectator the new spectator state
+   */
+  public void updateParticipant(Player player, boolean spectator) {
+    if(spectator) {
+      playersLeft.remove(player);
+      spectators.add(player);
+    } else {
+      spectators.remove(player);
+      playersLeft.add(player);
     }
+    placeholderCache.invalidate();
+  }
+
+  public void removeParticipant(Player player) {
+    playersLeft.remove(player);
+    spectators.remove(player);
+    placeholderCache.invalidate();
+  }
+
+  public void clearParticipants() {
+    playersLeft.clear();
+    spectators.clear();
+    placeholderCache.invalidate();
+  }
 
-    return playersLeft;
+  /**
+   * Get the values of arena placeholders computed in the current tick
+   *
+   * @return the placeholder cache of this arena
+   */
+  public ArenaPlaceholderCache getPlaceholderCache() {
+    return placeholderCache;
   }
 
   public PluginMain getPlugin() {
@@ -71,7 +71,7 @@ public class PluginArenaManager {
       return;
     }
 
-    arena.getPlayers().add(player);
+    plugin.getArenaRegistry().addPlayer(player, arena);
 
     if(arena.getArenaState() == ArenaState.IN_GAME || arena.getArenaState().isStartingStage(arena) && arena.getTimer() <= 3 || arena.getArenaState() == ArenaState.ENDING) {
       if(!plugin.getConfigPreferences().getOption("SPECTATORS")) {
@@ -34,6 +34,10 @@ import plugily.projects.minigamesbox.classic.utils.serialization.LocationSeriali
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 
@@ -46,6 +50,10 @@ import java.util.stream.Collectors;
 public class PluginArenaRegistry {
 
   private final List<PluginArena> arenas = new ArrayList<>();
+  //lowercase arena id to arena, lookups from placeholders happen on any thread
+  private final Map<String, PluginArena> arenasById = new ConcurrentHashMap<>();
+  //player to the arena the player is in, see addPlayer and removePlayer, misses fall back to a scan
+  private final Map<UUID, PluginArena> playerArenas = new ConcurrentHashMap<>();
   private final PluginMain plugin;
   private final List<World> arenaIngameWorlds = new ArrayList<>();
   private final List<World> arenaWorlds = new ArrayList<>();
@@ -78,17 +86,25 @@ public class PluginArenaRegistry {
     if(player == null) {
       return null;
     }
-
-    java.util.UUID playerId = player.getUniqueId();
-
+    UUID playerId = player.getUniqueId();
+    PluginArena arena = playerArenas.get(playerId);
+    if(arena != null) {
+      if(arena.getPlayers().contains(player)) {
+        return arena;
+      }
+      //players could have been removed from the players of the arena directly
+      playerArenas.remove(playerId, arena);
+    }
+    //or added directly without addPlayer, index them on the first lookup
     for(PluginArena loopArena : arenas) {
       for(Player arenaPlayer : loopArena.getPlayers()) {
         if(arenaPlayer.getUniqueId().equals(playerId)) {
+          playerArenas.put(playerId, loopArena);
+          loopArena.updateParticipant(arenaPlayer, plugin.getUserManager().getUser(arenaPlayer).isSpectator());
           return loopArena;
         }
       }
     }
-
     return null;
   }
 
@@ -100,12 +116,45 @@ public class PluginArenaRegistry {
    */
   @Nullable
   public PluginArena getArena(String id) {
-    for(PluginArena loopArena : arenas) {
-      if(loopArena.getId().equalsIgnoreCase(id)) {
-        return loopArena;
-      }
+    if(id == null) {
+      return null;
     }
-    return null;
+    return arenasById.get(id.toLowerCase(Locale.ENGLISH));
+  }
+
+  /**
+   * Adds the player to the players of the arena
+   *
+   * @param player player which joins
+   * @param arena  the arena
+   */
+  public void addPlayer(Player player, PluginArena arena) {
+    arena.getPlayers().add(player);
+    playerArenas.put(player.getUniqueId(), arena);
+    arena.updateParticipant(player, plugin.getUserManager().getUser(player).isSpectator());
+  }
+
+  /**
+   * Removes the player from the players of the arena
+   *
+   * @param player player which leaves
+   * @param arena  the arena
+   */
+  public void removePlayer(Player player, PluginArena arena) {
+    arena.getPlayers().remove(player);
+    playerArenas.remove(player.getUniqueId(), arena);
+    arena.removeParticipant(player);
+  }
+
+  /**
+   * Removes all players from the players of the arena
+   *
+   * @param arena the arena
+   */
+  public void removePlayers(PluginArena arena) {
+    arena.getPlayers().clear();
+    playerArenas.values().removeIf(arena::equals);
+    arena.clearParticipants();
   }
 
   public int getArenaPlayersOnline() {
@@ -119,6 +168,7 @@ public class PluginArenaRegistry {
   public void registerArena(PluginArena arena) {
     plugin.getDebugger().debug("[{0}] Instance registered", arena.getId());
     arenas.add(arena);
+    arenasById.putIfAbsent(arena.getId().toLowerCase(Locale.ENGLISH), arena);
     World startWorld = arena.getStartLocation().getWorld();
     World endWorld = arena.getEndLocation().getWorld();
     World lobbyWorld = arena.getLobbyLocation().getWorld();
@@ -142,6 +192,11 @@ public class PluginArenaRegistry {
     }
     plugin.getDebugger().debug("[{0}] Instance unregistered", arena.getId());
     arenas.remove(arena);
+    if(arenasById.remove(arena.getId().toLowerCase(Locale.ENGLISH), arena)) {
+      arenas.stream().filter(other -> other.getId().equalsIgnoreCase(arena.getId())).findFirst()
+          .ifPresent(other -> arenasById.putIfAbsent(other.getId().toLowerCase(Locale.ENGLISH), other));
+    }
+    playerArenas.values().removeIf(arena::equals);
 
     World startWorld = arena.getStartLocation().getWorld();
     World endWorld = arena.getEndLocation().getWorld();
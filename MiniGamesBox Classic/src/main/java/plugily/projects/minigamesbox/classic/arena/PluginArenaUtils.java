@@ -149,7 +149,7 @@ public class PluginArenaUtils {
     arena.getScoreboardManager().removeScoreboard(user);
     arena.getBossbarManager().doBarAction(PluginArena.BarAction.REMOVE, player);
     arena.teleportToEndLocation(player);
-    arena.getPlayers().remove(player);
+    plugin.getArenaRegistry().removePlayer(player, arena);
 
     plugin.getActionBarManager().clearActionBarsFromPlayer(player);
 
@@ -37,7 +37,7 @@ public class PluginMapRestorerManager {
     arena.getPlugin().getDebugger().debug("Arena {0} Restoring Arena", arena.getId());
     arena.loadArenaOptions();
     arena.getScoreboardManager().stopAllScoreboards();
-    arena.getPlayers().clear();
+    arena.getPlugin().getArenaRegistry().removePlayers(arena);
   }
 
 }
@@ -33,6 +33,7 @@ import plugily.projects.minigamesbox.classic.commands.arguments.admin.arena.Dele
 import plugily.projects.minigamesbox.classic.commands.arguments.admin.arena.ForceStartArgument;
 import plugily.projects.minigamesbox.classic.commands.arguments.admin.arena.StopArgument;
 import plugily.projects.minigamesbox.classic.commands.arguments.admin.statistic.AdjustStatisticArgument;
+import plugily.projects.minigamesbox.classic.commands.arguments.admin.statistic.MigrateStatisticArgument;
 import plugily.projects.minigamesbox.classic.commands.arguments.data.CommandArgument;
 import plugily.projects.minigamesbox.classic.commands.arguments.data.LabelData;
 import plugily.projects.minigamesbox.classic.commands.arguments.data.LabeledCommandArgument;
@@ -98,6 +99,7 @@ public class PluginArgumentsRegistry implements CommandExecutor {
 
     //player statistic related arguments
     new AdjustStatisticArgument(this);
+    new MigrateStatisticArgument(this);
 
     //other admin related arguments
     new ListArenasArgument(this);
@@ -107,6 +109,7 @@ public class PluginArgumentsRegistry implements CommandExecutor {
     new LocaleArgument(this);
     spyChat = new SpyChatArgument(this);
     new TeleportArgument(this);
+    new DatabaseArgument(this);
     if(plugin.getConfigPreferences().getOption("LEADERBOARDS")) {
       new HologramArgument(this);
     }
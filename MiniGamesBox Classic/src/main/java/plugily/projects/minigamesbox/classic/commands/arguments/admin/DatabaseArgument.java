@@ -0,0 +1,56 @@
+/*
+ *  MiniGamesBox - Library box with massive content that could be seen as minigames core.
+ *  Copyright (C) 2023 Plugily Projects - maintained by Tigerpanzer_02 and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package plugily.projects.minigamesbox.classic.commands.arguments.admin;
+
+import org.bukkit.command.CommandSender;
+import plugily.projects.minigamesbox.classic.commands.arguments.PluginArgumentsRegistry;
+import plugily.projects.minigamesbox.classic.commands.arguments.data.CommandArgument;
+import plugily.projects.minigamesbox.classic.commands.arguments.data.LabelData;
+import plugily.projects.minigamesbox.classic.commands.arguments.data.LabeledCommandArgument;
+import plugily.projects.minigamesbox.classic.handlers.language.MessageBuilder;
+import plugily.projects.minigamesbox.database.MysqlDatabase;
+import plugily.projects.minigamesbox.database.PoolStatistics;
+
+public class DatabaseArgument {
+
+  public DatabaseArgument(PluginArgumentsRegistry registry) {
+    registry.mapArgument(registry.getPlugin().getCommandAdminPrefixLong(), new LabeledCommandArgument("database", registry.getPlugin().getPluginNamePrefixLong() + ".admin.database", CommandArgument.ExecutorType.BOTH,
+        new LabelData("/" + registry.getPlugin().getCommandAdminPrefix() + " database", "/" + registry.getPlugin().getCommandAdminPrefix() + " database",
+            "&7Shows statistics of the MySQL connection pool\n&6Permission: &7" + registry.getPlugin().getPluginNamePrefixLong() + ".admin.database")) {
+      @Override
+      public void execute(CommandSender sender, String[] args) {
+        MysqlDatabase database = registry.getPlugin().getUserManager().getDatabase().getMySQLDatabase();
+        if(database == null) {
+          new MessageBuilder("&cStatistics are not stored in MySQL, there is no connection pool!").prefix().send(sender);
+          return;
+        }
+        PoolStatistics statistics = database.getPoolStatistics();
+        new MessageBuilder("&e&lMySQL connection pool").send(sender);
+        new MessageBuilder("&7Connections: &a" + statistics.getActiveConnections() + " active &7/ &a" + statistics.getIdleConnections() + " idle &7/ &a"
+            + statistics.getTotalConnections() + " total &7(max " + statistics.getMaxConnections() + ")").send(sender);
+        new MessageBuilder("&7Waiting threads: " + (statistics.getWaitingThreads() > 0 ? "&c" : "&a") + statistics.getWaitingThreads()
+            + " &7Timeouts: " + (statistics.getTimeouts() > 0 ? "&c" : "&a") + statistics.getTimeouts()).send(sender);
+        new MessageBuilder("&7Circuit: " + (database.isAvailable() ? "&a" : "&c") + database.getCircuitState()).send(sender);
+        new MessageBuilder(String.format("&7Acquire time: &ap50 %.2fms &7/ &ap95 %.2fms &7/ &ap99 %.2fms",
+            statistics.getAcquireP50(), statistics.getAcquireP95(), statistics.getAcquireP99())).send(sender);
+      }
+    });
+  }
+
+}
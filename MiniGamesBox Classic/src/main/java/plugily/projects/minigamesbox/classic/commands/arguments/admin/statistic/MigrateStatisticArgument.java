@@ -0,0 +1,78 @@
+/*
+ *  MiniGamesBox - Library box with massive content that could be seen as minigames core.
+ *  Copyright (C) 2023 Plugily Projects - maintained by Tigerpanzer_02 and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package plugily.projects.minigamesbox.classic.commands.arguments.admin.statistic;
+
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+import plugily.projects.minigamesbox.classic.commands.arguments.PluginArgumentsRegistry;
+import plugily.projects.minigamesbox.classic.commands.arguments.data.CommandArgument;
+import plugily.projects.minigamesbox.classic.commands.arguments.data.LabelData;
+import plugily.projects.minigamesbox.classic.commands.arguments.data.LabeledCommandArgument;
+import plugily.projects.minigamesbox.classic.handlers.language.MessageBuilder;
+import plugily.projects.minigamesbox.classic.user.data.StatsMigration;
+import plugily.projects.minigamesbox.number.NumberUtils;
+
+public class MigrateStatisticArgument {
+
+  private static final int DEFAULT_CHUNK_SIZE = 1000;
+
+  private StatsMigration migration;
+
+  public MigrateStatisticArgument(PluginArgumentsRegistry registry) {
+    String usage = "/" + registry.getPlugin().getCommandAdminPrefix() + " migrate <source> <target> &c[chunk size]";
+    registry.mapArgument(registry.getPlugin().getCommandAdminPrefixLong(), new LabeledCommandArgument("migrate", registry.getPlugin().getPluginNamePrefixLong() + ".admin.migrate",
+        CommandArgument.ExecutorType.BOTH, new LabelData(usage, "/" + registry.getPlugin().getCommandAdminPrefix() + " migrate &6<source> <target>",
+        "&7Copies the statistics of all players into another storage\n&7or exports them as ndjson/csv file, a stopped migration continues\n"
+            + "&7Storages: &aYAML, SHARDED, SQLITE, MYSQL &7Exports: &aNDJSON, CSV\n&7Use &a/" + registry.getPlugin().getCommandAdminPrefix() + " migrate <status/cancel> &7while it runs\n"
+            + "&6Permission: &7" + registry.getPlugin().getPluginNamePrefixLong() + ".admin.migrate")) {
+      @Override
+      public void execute(CommandSender sender, String[] args) {
+        if(args.length == 2 && (args[1].equalsIgnoreCase("status") || args[1].equalsIgnoreCase("cancel"))) {
+          if(migration == null || !migration.isRunning()) {
+            new MessageBuilder(ChatColor.RED + "There is no running migration!").prefix().send(sender);
+            return;
+          }
+          if(args[1].equalsIgnoreCase("cancel")) {
+            migration.cancel();
+          }
+          new MessageBuilder("&7Migration " + migration.getSource() + " > " + migration.getTarget() + ": &a" + migration.getMigrated() + " players").prefix().send(sender);
+          return;
+        }
+        if(args.length < 3) {
+          new MessageBuilder("COMMANDS_WRONG_USAGE").asKey().value(usage).send(sender);
+          return;
+        }
+        if(migration != null && migration.isRunning()) {
+          new MessageBuilder(ChatColor.RED + "A migration is already running!").prefix().send(sender);
+          return;
+        }
+        int chunkSize = args.length > 3 ? NumberUtils.parseInt(args[3]).orElse(DEFAULT_CHUNK_SIZE) : DEFAULT_CHUNK_SIZE;
+        try {
+          migration = new StatsMigration(registry.getPlugin(), args[1], args[2], chunkSize);
+        } catch(IllegalArgumentException exception) {
+          new MessageBuilder(ChatColor.RED + exception.getMessage()).prefix().send(sender);
+          return;
+        }
+        new MessageBuilder("&7Migrating statistics from " + migration.getSource() + " to " + migration.getTarget() + "...").prefix().send(sender);
+        migration.start(message -> new MessageBuilder("&7" + message).prefix().send(sender));
+      }
+    });
+  }
+
+}
@@ -25,10 +25,13 @@ import plugily.projects.minigamesbox.classic.commands.arguments.PluginArgumentsR
 import plugily.projects.minigamesbox.classic.commands.arguments.data.CommandArgument;
 import plugily.projects.minigamesbox.classic.commands.completion.CompletableArgument;
 import plugily.projects.minigamesbox.classic.handlers.language.MessageBuilder;
+import plugily.projects.minigamesbox.classic.user.PlayerNameCache;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 /**
  * @author Tigerpanzer_02
@@ -67,22 +70,25 @@ public class LeaderboardArgument {
   }
 
   private void printLeaderboard(CommandSender sender, StatisticType statisticType) {
-    java.util.Map<UUID, Integer> stats = registry.getPlugin().getStatsStorage().getStats(statisticType);
-    new MessageBuilder("LEADERBOARD_TYPE_CHAT_TOP_HEADER").asKey().send(sender);
-    String statistic = StringUtils.capitalize(statisticType.getName().toLowerCase().replace('_', ' '));
-    UUID[] array = stats.keySet().toArray(new UUID[0]);
-    for(int position = 1; position <= 10; position++) {
-      if(array.length - position < 0) {
-        sender.sendMessage(formatMessage(statistic, "Empty", position, 0));
-      } else {
-        UUID current = array[array.length - position];
-        String name = registry.getPlugin().getUserManager().getDatabase().getPlayerName(current);
-        if(name == null) {
-          name = "Unknown Player";
+    List<Map.Entry<UUID, Integer>> top = registry.getPlugin().getStatsStorage().getLeaderboardIndex().getTop(statisticType, 10, 0);
+    PlayerNameCache nameCache = registry.getPlugin().getUserManager().getPlayerNameCache();
+    //names of offline players are looked up off the main thread before printing
+    nameCache.load(top.stream().map(Map.Entry::getKey).collect(Collectors.toList()), () -> {
+      new MessageBuilder("LEADERBOARD_TYPE_CHAT_TOP_HEADER").asKey().send(sender);
+      String statistic = StringUtils.capitalize(statisticType.getName().toLowerCase().replace('_', ' '));
+      for(int position = 1; position <= 10; position++) {
+        if(position > top.size()) {
+          sender.sendMessage(formatMessage(statistic, "Empty", position, 0));
+        } else {
+          Map.Entry<UUID, Integer> current = top.get(position - 1);
+          String name = nameCache.getName(current.getKey());
+          if(name == null) {
+            name = "Unknown Player";
+          }
+          sender.sendMessage(formatMessage(statistic, name, position, current.getValue()));
         }
-        sender.sendMessage(formatMessage(statistic, name, position, stats.get(current)));
       }
-    }
+    });
   }
 
   private String formatMessage(String statisticName, String playerName, int position, int value) {
@@ -19,6 +19,7 @@
 package plugily.projects.minigamesbox.classic.commands.arguments.game;
 
 import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import plugily.projects.minigamesbox.classic.api.StatisticType;
@@ -42,7 +43,7 @@ public class StatsArgument {
       public void execute(CommandSender sender, String[] args) {
         Player player = args.length == 2 ? Bukkit.getPlayerExact(args[1]) : (Player) sender;
         if(player == null) {
-          new MessageBuilder("COMMANDS_PLAYER_NOT_FOUND").asKey().send(sender);
+          sendOfflineStats(sender, args[1]);
           return;
         }
         User user = registry.getPlugin().getUserManager().getUser(player);
@@ -51,6 +52,32 @@ public class StatsArgument {
         sendLeaderboardFooter(sender);
       }
 
+      private void sendOfflineStats(CommandSender sender, String name) {
+        //the name lookup may ask the session server, never on the main thread
+        Bukkit.getScheduler().runTaskAsynchronously(registry.getPlugin(), () -> {
+          OfflinePlayer offlinePlayer = Bukkit.getOfflinePlayer(name);
+          Bukkit.getScheduler().runTask(registry.getPlugin(), () -> {
+            if(!offlinePlayer.hasPlayedBefore()) {
+              new MessageBuilder("COMMANDS_PLAYER_NOT_FOUND").asKey().send(sender);
+              return;
+            }
+            registry.getPlugin().getUserManager().getOfflineStatsCache().getStatistics(offlinePlayer.getUniqueId(), values -> {
+              if(values == null) {
+                new MessageBuilder("COMMANDS_PLAYER_NOT_FOUND").asKey().send(sender);
+                return;
+              }
+              new MessageBuilder("LEADERBOARD_TYPE_CHAT_HEADER_OTHER").asKey().offlinePlayer(offlinePlayer).send(sender);
+              for(StatisticType statisticType : registry.getPlugin().getStatsStorage().getStatistics().values()) {
+                if(statisticType.isPersistent()) {
+                  new MessageBuilder("LEADERBOARD_STATISTICS_" + statisticType.getName().toUpperCase()).asKey().offlinePlayer(offlinePlayer).integer(values.getOrDefault(statisticType, 0)).send(sender);
+                }
+              }
+              sendLeaderboardFooter(sender);
+            });
+          });
+        });
+      }
+
       private void sendLeaderboardFooter(CommandSender sender) {
         new MessageBuilder("LEADERBOARD_TYPE_CHAT_FOOTER").asKey().send(sender);
       }
@@ -61,17 +61,17 @@ public class ChatEvents implements Listener {
       event.getRecipients().addAll(new ArrayList<>(arena.getPlayers()));
       if(plugin.getConfigPreferences().getOption("SEPARATE_ARENA_SPECTATORS")) {
         if(plugin.getUserManager().getUser(event.getPlayer()).isSpectator()) {
-          event.getRecipients().removeIf(player -> arena.getPlayersLeft().contains(player));
+          event.getRecipients().removeIf(arena::isAlive);
         } else {
-          event.getRecipients().removeIf(player -> !arena.getPlayersLeft().contains(player));
+          event.getRecipients().removeIf(player -> !arena.isAlive(player));
         }
       }
     } else if(plugin.getConfigPreferences().getOption("SEPARATE_ARENA_SPECTATORS")) {
       for(PluginArena loopArena : plugin.getArenaRegistry().getArenas()) {
         if(plugin.getUserManager().getUser(event.getPlayer()).isSpectator()) {
-          event.getRecipients().removeIf(player -> loopArena.getPlayersLeft().contains(player));
+          event.getRecipients().removeIf(loopArena::isAlive);
         } else {
-          event.getRecipients().removeIf(player -> !loopArena.getPlayersLeft().contains(player));
+          event.getRecipients().removeIf(player -> !loopArena.isAlive(player));
         }
       }
     }
@@ -21,7 +21,9 @@ import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 import plugily.projects.minigamesbox.classic.PluginMain;
 import plugily.projects.minigamesbox.classic.handlers.items.SpecialItem;
@@ -43,8 +45,18 @@ public class JoinEvent implements Listener {
     plugin.getServer().getPluginManager().registerEvents(this, plugin);
   }
 
+  @EventHandler(priority = EventPriority.MONITOR)
+  public void onPreLogin(AsyncPlayerPreLoginEvent event) {
+    if(event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+      return;
+    }
+    //loading on the async login thread keeps the join itself free of database calls
+    plugin.getUserManager().prefetchStatistics(event.getUniqueId());
+  }
+
   @EventHandler
   public void onJoin(PlayerJoinEvent event) {
+    plugin.getUserManager().getPlayerNameCache().update(event.getPlayer().getUniqueId(), event.getPlayer().getName());
     plugin.getUserManager().loadStatistics(plugin.getUserManager().getUser(event.getPlayer()));
     //load player inventory in case of server crash, file is deleted once loaded so if file was already
     //deleted player won't receive his backup, in case of crash he will get it back
@@ -30,6 +30,7 @@ import plugily.projects.minigamesbox.classic.utils.hologram.ArmorStandHologram;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -62,18 +63,16 @@ public class LeaderboardHologram {
   }
 
   public void updateHologram() {
-    java.util.Map<UUID, Integer> values = plugin.getStatsStorage().getStats(statistic);
-    List<UUID> reverseKeys = new ArrayList<>(values.keySet());
-    Collections.reverse(reverseKeys);
+    List<Map.Entry<UUID, Integer>> top = plugin.getStatsStorage().getLeaderboardIndex().getTop(statistic, topAmount, 0);
 
     List<String> update = new ArrayList<>(Collections.singletonList(header));
 
     for(int i = 0; i < topAmount; i++) {
       String text;
-      if(i < reverseKeys.size()) {
-        UUID uuid = reverseKeys.get(i);
-        text = new MessageBuilder("LEADERBOARD_TYPE_HOLOGRAM_FORMAT").asKey().integer(i + 1).value(String.valueOf(values.get(uuid))).build();
-        text = StringUtils.replace(text, "%player%", getPlayerNameSafely(uuid));
+      if(i < top.size()) {
+        Map.Entry<UUID, Integer> entry = top.get(i);
+        text = new MessageBuilder("LEADERBOARD_TYPE_HOLOGRAM_FORMAT").asKey().integer(i + 1).value(String.valueOf(entry.getValue())).build();
+        text = StringUtils.replace(text, "%player%", getPlayerNameSafely(entry.getKey()));
       } else {
         text = new MessageBuilder("LEADERBOARD_TYPE_HOLOGRAM_EMPTY_FORMAT").asKey().integer(i + 1).build();
       }
@@ -89,7 +88,7 @@ public class LeaderboardHologram {
   }
 
   private String getPlayerNameSafely(UUID uuid) {
-    String name = plugin.getUserManager().getDatabase().getPlayerName(uuid);
+    String name = plugin.getUserManager().getPlayerNameCache().getName(uuid);
     return name != null ? name : new MessageBuilder("LEADERBOARD_UNKNOWN_PLAYER").asKey().build();
   }
 
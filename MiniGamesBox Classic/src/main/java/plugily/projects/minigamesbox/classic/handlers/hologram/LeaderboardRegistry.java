@@ -19,16 +19,19 @@
 
 package plugily.projects.minigamesbox.classic.handlers.hologram;
 
+import org.bukkit.Bukkit;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import plugily.projects.minigamesbox.classic.PluginMain;
-import plugily.projects.minigamesbox.classic.api.event.player.PlugilyPlayerStatisticChangeEvent;
+import plugily.projects.minigamesbox.classic.api.event.player.PlugilyPlayerStatisticBatchChangeEvent;
 import plugily.projects.minigamesbox.classic.utils.configuration.ConfigUtils;
 import plugily.projects.minigamesbox.classic.utils.serialization.LocationSerializer;
 
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * @author Tigerpanzer_02
@@ -38,6 +41,7 @@ import java.util.List;
 public class LeaderboardRegistry implements Listener {
 
   private final List<LeaderboardHologram> leaderboardHolograms = new ArrayList<>();
+  private final Set<LeaderboardHologram> pendingUpdates = new LinkedHashSet<>();
   private final PluginMain plugin;
 
   public LeaderboardRegistry(PluginMain plugin) {
@@ -67,12 +71,44 @@ public class LeaderboardRegistry implements Listener {
   }
 
   @EventHandler
-  public void onStatisticUpdate(PlugilyPlayerStatisticChangeEvent event) {
-    leaderboardHolograms.stream().filter(leaderboardHologram -> event.getStatisticType() == leaderboardHologram.getStatistic()).forEach(LeaderboardHologram::updateHologram);
+  public void onStatisticUpdate(PlugilyPlayerStatisticBatchChangeEvent event) {
+    for(LeaderboardHologram leaderboardHologram : leaderboardHolograms) {
+      if(event.getValues().containsKey(leaderboardHologram.getStatistic())) {
+        queueUpdate(leaderboardHologram);
+      }
+    }
+  }
+
+  /**
+   * Updates all holograms within the next tick e.g. after player names were loaded
+   */
+  public void updateHolograms() {
+    leaderboardHolograms.forEach(this::queueUpdate);
+  }
+
+  private void queueUpdate(LeaderboardHologram hologram) {
+    //changes of all players in the same tick result in one update per hologram
+    if(pendingUpdates.isEmpty()) {
+      Bukkit.getScheduler().runTask(plugin, () -> {
+        List<LeaderboardHologram> holograms = new ArrayList<>(pendingUpdates);
+        pendingUpdates.clear();
+        holograms.stream().filter(leaderboardHolograms::contains).forEach(LeaderboardHologram::updateHologram);
+      });
+    }
+    pendingUpdates.add(hologram);
   }
 
   public void registerHologram(LeaderboardHologram hologram) {
     leaderboardHolograms.add(hologram);
+    reserveNames();
+  }
+
+  private void reserveNames() {
+    int entries = 0;
+    for(LeaderboardHologram hologram : leaderboardHolograms) {
+      entries += hologram.getTopAmount();
+    }
+    plugin.getUserManager().getPlayerNameCache().reserve(entries);
   }
 
   public void disableHologram(int id) {
@@ -83,6 +119,7 @@ public class LeaderboardRegistry implements Listener {
       if(hologram.getId() == id) {
         hologram.delete();
         leaderboardHolograms.remove(hologram);
+        reserveNames();
         return;
       }
     }
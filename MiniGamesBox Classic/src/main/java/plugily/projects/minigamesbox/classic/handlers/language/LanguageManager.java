@@ -19,6 +19,7 @@
 
 package plugily.projects.minigamesbox.classic.handlers.language;
 
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
@@ -32,7 +33,9 @@ import plugily.projects.minigamesbox.classic.utils.services.locale.LocaleService
 import java.io.File;
 import java.io.IOException;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
 
@@ -49,6 +52,9 @@ public class LanguageManager {
   private FileConfiguration languageConfig;
   private boolean messagesIntegrityPassed = true;
   private final FileConfiguration defaultLanguageConfig;
+  //effective message of every path, replaced as a whole on reload
+  private volatile Map<String, String> messages = Collections.emptyMap();
+  private volatile MessagePalette palette = MessagePalette.NO_COLOR;
 
   /**
    * Initializes language management system
@@ -68,10 +74,11 @@ public class LanguageManager {
     new LanguageMigrator(plugin);
     languageConfig = ConfigUtils.getConfig(plugin, "language");
     defaultLanguageConfig = ConfigUtils.getConfig(plugin, "locales/language_default");
-    setupLocale();
+    selectLocale();
     if(isDefaultLanguageUsed()) {
       validateMessagesIntegrity();
     }
+    loadMessages();
   }
 
   private void validateMessagesIntegrity() {
@@ -143,6 +150,11 @@ public class LanguageManager {
   }
 
   public void setupLocale() {
+    selectLocale();
+    loadMessages();
+  }
+
+  private void selectLocale() {
     String localeName = plugin.getConfig().getString("locale", "default").toLowerCase();
     for(Locale locale : LocaleRegistry.getRegisteredLocales()) {
       if(locale.getPrefix().equalsIgnoreCase(localeName)) {
@@ -175,7 +187,33 @@ public class LanguageManager {
     return "Default".equalsIgnoreCase(pluginLocale.getName());
   }
 
+  /**
+   * Resolves the message of every path once, locale or language.yml
+   */
+  private void loadMessages() {
+    Map<String, String> resolved = new HashMap<>();
+    for(String path : languageConfig.getKeys(true)) {
+      Object value = languageConfig.get(path);
+      if(value == null || value instanceof ConfigurationSection || value instanceof List) {
+        continue;
+      }
+      resolved.put(path, resolveLanguageMessage(path));
+    }
+    messages = Collections.unmodifiableMap(resolved);
+    palette = MessagePalette.load(this, plugin.getMessageManager());
+    MessageTemplate.clearCache();
+  }
+
   public String getLanguageMessage(String path) {
+    String message = messages.get(path);
+    if(message != null) {
+      return message;
+    }
+    //not in language.yml, logs the missing path
+    return resolveLanguageMessage(path);
+  }
+
+  private String resolveLanguageMessage(String path) {
     if(isDefaultLanguageUsed()) {
       return getString(path);
     }
@@ -189,6 +227,13 @@ public class LanguageManager {
     return getString(path);
   }
 
+  /**
+   * @return the chat colors of the current language
+   */
+  public MessagePalette getPalette() {
+    return palette;
+  }
+
   public List<String> getLanguageList(String path) {
     return getLanguageListContent(path);
   }
@@ -246,6 +291,7 @@ public class LanguageManager {
 
   public void reloadLanguage() {
     languageConfig = ConfigUtils.getConfig(plugin, "language");
+    loadMessages();
   }
 
   public Locale getPluginLocale() {
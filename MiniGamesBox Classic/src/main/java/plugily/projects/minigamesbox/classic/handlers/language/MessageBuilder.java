@@ -21,6 +21,7 @@ package plugily.projects.minigamesbox.classic.handlers.language;
 import me.clip.placeholderapi.PlaceholderAPI;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
+import org.bukkit.OfflinePlayer;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
@@ -31,6 +32,9 @@ import plugily.projects.minigamesbox.classic.handlers.placeholder.Placeholder;
 import plugily.projects.minigamesbox.classic.utils.misc.MiscUtils;
 import plugily.projects.minigamesbox.classic.utils.version.ServerVersion;
 
+import java.util.List;
+import java.util.function.UnaryOperator;
+
 /**
  * @author Tigerpanzer_02
  * <p>
@@ -38,17 +42,18 @@ import plugily.projects.minigamesbox.classic.utils.version.ServerVersion;
  */
 public class MessageBuilder {
 
-  private String placeholderColorValue = plugin.getLanguageManager().getLanguageMessage(plugin.getMessageManager().getPath("COLOR_PLACEHOLDER_VALUE"));
-  private String placeholderColorNumber = plugin.getLanguageManager().getLanguageMessage(plugin.getMessageManager().getPath("COLOR_PLACEHOLDER_NUMBER"));
-  private String placeholderColorPlayer = plugin.getLanguageManager().getLanguageMessage(plugin.getMessageManager().getPath("COLOR_PLACEHOLDER_PLAYER"));
-  private String placeholderColorOther = plugin.getLanguageManager().getLanguageMessage(plugin.getMessageManager().getPath("COLOR_PLACEHOLDER_OTHER"));
-  private String messageColor = plugin.getLanguageManager().getLanguageMessage(plugin.getMessageManager().getPath("COLOR_CHAT_MESSAGES"));
-  private String messageIssueColor = plugin.getLanguageManager().getLanguageMessage(plugin.getMessageManager().getPath("COLOR_CHAT_ISSUE"));
-  private String messageSpecialCharBefore = plugin.getLanguageManager().getLanguageMessage(plugin.getMessageManager().getPath("COLOR_CHAT_SPECIAL_BEFORE"));
+  private final MessagePalette palette;
+  //switched to the issue color by %color_chat_issue%
+  private String messageColor;
   private String message;
+  //language strings are compiled once, any other text is compiled on every build
+  private boolean cacheable;
   private Player player;
+  private OfflinePlayer offlinePlayer;
   private String value;
+  private boolean valueSet;
   private int integer;
+  private boolean integerSet;
   private PluginArena arena;
   private static PluginMain plugin;
 
@@ -57,11 +62,7 @@ public class MessageBuilder {
   }
 
   public MessageBuilder(String message) {
-    if(message == null) {
-      message = "";
-    }
-    this.message = message;
-    colorChatIssue();
+    this(message, true);
   }
 
   public MessageBuilder(String message, boolean autoColor) {
@@ -69,153 +70,249 @@ public class MessageBuilder {
       message = "";
     }
     this.message = message;
-    if(!autoColor) {
-      this.placeholderColorValue = "";
-      this.placeholderColorNumber = "";
-      this.placeholderColorPlayer = "";
-      this.placeholderColorOther = "";
-      this.messageColor = "";
-      this.messageIssueColor = "";
-      this.messageSpecialCharBefore = "";
-    }
+    this.palette = autoColor ? plugin.getLanguageManager().getPalette() : MessagePalette.NO_COLOR;
+    this.messageColor = palette.getMessageColor();
     colorChatIssue();
   }
 
   public MessageBuilder(@NotNull ActionType actionType) {
+    this.palette = plugin.getLanguageManager().getPalette();
+    this.messageColor = palette.getMessageColor();
     this.message = plugin.getLanguageManager().getLanguageMessage(plugin.getMessageManager().getMessage("IN_GAME_MESSAGES_" + actionType).getPath());
+    this.cacheable = true;
     colorChatIssue();
   }
 
   public MessageBuilder(@NotNull Message message) {
+    this.palette = plugin.getLanguageManager().getPalette();
+    this.messageColor = palette.getMessageColor();
     this.message = plugin.getLanguageManager().getLanguageMessage(message.getPath());
+    this.cacheable = true;
     colorChatIssue();
   }
 
   private void colorChatIssue() {
     if(message.contains("%color_chat_issue%")) {
-      messageColor = messageIssueColor;
+      messageColor = palette.getMessageIssueColor();
+      message = message.replace("%color_chat_issue%", palette.getMessageIssueColor());
     }
-
-    message = replace(message, "%color_chat_issue%", () -> messageIssueColor);
   }
 
   public MessageBuilder asKey() {
     message = plugin.getLanguageManager().getLanguageMessage(plugin.getMessageManager().getPath(message));
+    cacheable = true;
     return this;
   }
 
   public MessageBuilder prefix() {
-    message = placeholderColorOther + "%plugin_prefix% " + messageColor + message;
+    message = palette.getPlaceholderColorOther() + "%plugin_prefix% " + messageColor + message;
     return this;
   }
 
   public MessageBuilder prefix(String prefix) {
     message = prefix + messageColor + message;
+    cacheable = false;
     return this;
   }
 
   public MessageBuilder player(Player player) {
     this.player = player;
-    formatPlayer();
+    return this;
+  }
+
+  /**
+   * Sets %player% and %player_uuid% for a player which may be offline.
+   * Placeholders of other plugins still need an online player, see {@link #player(Player)}
+   *
+   * @param offlinePlayer the player
+   * @return this builder
+   */
+  public MessageBuilder offlinePlayer(OfflinePlayer offlinePlayer) {
+    this.offlinePlayer = offlinePlayer;
     return this;
   }
 
   public MessageBuilder value(String value) {
     this.value = value;
-    formatValue();
+    this.valueSet = true;
     return this;
   }
 
   public MessageBuilder integer(int integer) {
     this.integer = integer;
-    formatInteger();
+    this.integerSet = true;
     return this;
   }
 
   public MessageBuilder arena(PluginArena arena) {
     this.arena = arena;
-    formatArena();
     return this;
   }
 
-  private void formatSpecialChars() {
+  private String formatSpecialChars(String text) {
     for(String specialChar : plugin.getMessageManager().getSpecialChars()) {
-      message = replace(message, specialChar, () -> messageSpecialCharBefore + specialChar + messageColor);
+      text = replace(text, specialChar, () -> palette.getMessageSpecialCharBefore() + specialChar + messageColor);
     }
+    return text;
   }
 
-  private void colorRawMessage() {
-    if(ServerVersion.Version.isCurrentEqualOrHigher(ServerVersion.Version.v1_16_R1) && message.indexOf('#') != -1) {
-      message = MiscUtils.matchColorRegex(message);
+  private String colorRawMessage(String text) {
+    if(ServerVersion.Version.isCurrentEqualOrHigher(ServerVersion.Version.v1_16_R1) && text.indexOf('#') != -1) {
+      text = MiscUtils.matchColorRegex(text);
     }
 
-    message = ChatColor.translateAlternateColorCodes('&', message);
-  }
-
-  private void formatInteger() {
-    message = replace(message, "%number%", () -> placeholderColorNumber + integer + messageColor);
+    return ChatColor.translateAlternateColorCodes('&', text);
   }
 
-  private void formatValue() {
-    message = replace(message, "%value%", () -> placeholderColorValue + value + messageColor);
+  private String format(String text) {
+    return colorRawMessage(formatSpecialChars(text));
   }
 
-  private void formatPlayer() {
-    message = replace(message, "%player%", () -> placeholderColorPlayer + player.getName() + messageColor);
-    message = replace(message, "%player_uuid%", () -> placeholderColorPlayer + player.getUniqueId() + messageColor);
+  private MessageTemplate getTemplate(String text, boolean cache) {
+    if(!cache) {
+      return MessageTemplate.compile(text, this::format);
+    }
+    //special chars are formatted with these colors while compiling
+    return MessageTemplate.getCached(palette.getMessageSpecialCharBefore() + '\0' + messageColor + '\0' + text, text, this::format);
+  }
+
+  /**
+   * Values of the placeholders set on this builder (number, value, player and arena)
+   *
+   * @param id the placeholder id
+   * @return the colored value or null if it is not set
+   */
+  private String getBoundValue(String id) {
+    switch(id) {
+      case "number":
+        return integerSet ? palette.getPlaceholderColorNumber() + integer + messageColor : null;
+      case "value":
+        return valueSet ? palette.getPlaceholderColorValue() + value + messageColor : null;
+      case "player":
+        if(player != null) {
+          return palette.getPlaceholderColorPlayer() + player.getName() + messageColor;
+        }
+        return offlinePlayer != null ? palette.getPlaceholderColorPlayer() + offlinePlayer.getName() + messageColor : null;
+      case "player_uuid":
+        if(player != null) {
+          return palette.getPlaceholderColorPlayer() + player.getUniqueId() + messageColor;
+        }
+        return offlinePlayer != null ? palette.getPlaceholderColorPlayer() + offlinePlayer.getUniqueId() + messageColor : null;
+      default:
+        break;
+    }
+    if(arena == null || !id.startsWith("arena_")) {
+      return null;
+    }
+    String arenaValue = arena.getPlaceholderCache().get(id, () -> getArenaValue(id));
+    return arenaValue == null ? null : palette.getPlaceholderColorOther() + arenaValue + messageColor;
+  }
+
+  private String getArenaValue(String id) {
+    switch(id) {
+      case "arena_min_players":
+        return String.valueOf(arena.getMinimumPlayers());
+      case "arena_players":
+        return String.valueOf(arena.getPlayers());
+      case "arena_players_size":
+        return String.valueOf(arena.getPlayers().size());
+      case "arena_players_left":
+        return String.valueOf(arena.getPlayersLeft());
+      case "arena_players_left_size":
+        return String.valueOf(arena.getAlivePlayers().size());
+      case "arena_max_players":
+        return String.valueOf(arena.getMaximumPlayers());
+      case "arena_name":
+        return String.valueOf(arena.getMapName());
+      case "arena_id":
+        return String.valueOf(arena.getId());
+      case "arena_state":
+        return String.valueOf(arena.getArenaState());
+      case "arena_state_formatted":
+        return String.valueOf(arena.getArenaState().getFormattedName());
+      case "arena_state_placeholder":
+        return String.valueOf(arena.getArenaState().getPlaceholder());
+      case "arena_time":
+        return String.valueOf(arena.getTimer());
+      case "arena_time_formatted":
+        return String.valueOf(StringFormatUtils.formatIntoMMSS(arena.getTimer()));
+      default:
+        return null;
+    }
   }
 
-  private void formatPlaceholderAPI() {
-    if(plugin.getServer().getPluginManager().isPluginEnabled("PlaceholderAPI")) {
-      message = PlaceholderAPI.setPlaceholders(player, message);
+  private String getPluginValue(String id) {
+    switch(id) {
+      case "plugin_prefix":
+        return palette.getPlaceholderColorOther() + plugin.getLanguageManager().getLanguageMessage(plugin.getMessageManager().getPath("IN_GAME_PLUGIN_PREFIX")) + messageColor;
+      case "plugin_name":
+        return palette.getPlaceholderColorOther() + plugin.getName() + messageColor;
+      case "plugin_name_uppercase":
+        return palette.getPlaceholderColorOther() + plugin.getName().toUpperCase() + messageColor;
+      case "plugin_short_command":
+        return palette.getPlaceholderColorOther() + plugin.getPluginNamePrefix() + messageColor;
+      default:
+        return null;
     }
   }
 
-  private void formatExternalPlayer() {
-    for(Placeholder placeholder : plugin.getPlaceholderManager().getRegisteredInternalPlaceholders()) {
-      if(placeholder.getPlaceholderType() != Placeholder.PlaceholderType.ARENA) {
-        message = replace(message, "%" + placeholder.getId() + "%", () -> placeholderColorOther + placeholder.getValue(player) + messageColor);
+  private String getExternalValue(String id) {
+    List<Placeholder> placeholders = plugin.getPlaceholderManager().getInternalPlaceholders(id);
+    if(placeholders.isEmpty()) {
+      return null;
+    }
+    if(player != null && arena != null) {
+      for(Placeholder placeholder : placeholders) {
+        if(placeholder.getPlaceholderType() != Placeholder.PlaceholderType.GLOBAL) {
+          return palette.getPlaceholderColorOther() + placeholder.getValue(player, arena) + messageColor;
+        }
       }
     }
-  }
-
-  private void formatExternalArena() {
-    for(Placeholder placeholder : plugin.getPlaceholderManager().getRegisteredInternalPlaceholders()) {
-      if(placeholder.getPlaceholderType() != Placeholder.PlaceholderType.GLOBAL) {
-        message = replace(message, "%" + placeholder.getId() + "%", () -> placeholderColorOther + placeholder.getValue(arena) + messageColor);
+    if(player != null) {
+      for(Placeholder placeholder : placeholders) {
+        if(placeholder.getPlaceholderType() != Placeholder.PlaceholderType.ARENA) {
+          return palette.getPlaceholderColorOther() + placeholder.getValue(player) + messageColor;
+        }
       }
     }
-  }
-
-  private void formatExternalPlayerAndArena() {
-    for(Placeholder placeholder : plugin.getPlaceholderManager().getRegisteredInternalPlaceholders()) {
-      if(placeholder.getPlaceholderType() != Placeholder.PlaceholderType.GLOBAL) {
-        message = replace(message, "%" + placeholder.getId() + "%", () -> placeholderColorOther + placeholder.getValue(player, arena) + messageColor);
+    if(arena != null) {
+      for(Placeholder placeholder : placeholders) {
+        if(placeholder.getPlaceholderType() != Placeholder.PlaceholderType.GLOBAL) {
+          return palette.getPlaceholderColorOther() + arena.getPlaceholderCache().get("placeholder:" + id, () -> placeholder.getValue(arena)) + messageColor;
+        }
       }
     }
+    return null;
   }
 
-  private void formatPlugin() {
-    message = replace(message, "%plugin_prefix%", () -> placeholderColorOther + plugin.getLanguageManager().getLanguageMessage(plugin.getMessageManager().getPath("IN_GAME_PLUGIN_PREFIX")) + messageColor);
-    message = replace(message, "%plugin_name%", () -> placeholderColorOther + plugin.getName() + messageColor);
-    message = replace(message, "%plugin_name_uppercase%", () -> placeholderColorOther + plugin.getName().toUpperCase() + messageColor);
-    message = replace(message, "%plugin_short_command%", () -> placeholderColorOther + plugin.getPluginNamePrefix() + messageColor);
+  private String getPlaceholderAPIValue(String id) {
+    if(!plugin.getServer().getPluginManager().isPluginEnabled("PlaceholderAPI")) {
+      return null;
+    }
+    String placeholder = '%' + id + '%';
+    String resolved = PlaceholderAPI.setPlaceholders(player, placeholder);
+    return placeholder.equals(resolved) ? null : resolved;
   }
 
-  private void formatArena() {
-    message = replace(message, "%arena_min_players%", () -> placeholderColorOther + arena.getMinimumPlayers() + messageColor);
-    message = replace(message, "%arena_players%", () -> placeholderColorOther + arena.getPlayers() + messageColor);
-    message = replace(message, "%arena_players_size%", () -> placeholderColorOther + arena.getPlayers().size() + messageColor);
-    message = replace(message, "%arena_players_left%", () -> placeholderColorOther + arena.getPlayersLeft() + messageColor);
-    message = replace(message, "%arena_players_left_size%", () -> placeholderColorOther + arena.getPlayersLeft().size() + messageColor);
-    message = replace(message, "%arena_max_players%", () -> placeholderColorOther + arena.getMaximumPlayers() + messageColor);
-    message = replace(message, "%arena_name%", () -> placeholderColorOther + arena.getMapName() + messageColor);
-    message = replace(message, "%arena_id%", () -> placeholderColorOther + arena.getId() + messageColor);
-    message = replace(message, "%arena_state%", () -> placeholderColorOther + arena.getArenaState() + messageColor);
-    message = replace(message, "%arena_state_formatted%", () -> placeholderColorOther + arena.getArenaState().getFormattedName() + messageColor);
-    message = replace(message, "%arena_state_placeholder%", () -> placeholderColorOther + arena.getArenaState().getPlaceholder() + messageColor);
-    message = replace(message, "%arena_time%", () -> placeholderColorOther + arena.getTimer() + messageColor);
-    message = replace(message, "%arena_time_formatted%", () -> placeholderColorOther + StringFormatUtils.formatIntoMMSS(arena.getTimer()) + messageColor);
+  private String resolve(String id, boolean nested) {
+    String resolved = getBoundValue(id);
+    if(resolved == null) {
+      resolved = getPluginValue(id);
+    }
+    if(resolved == null) {
+      resolved = getExternalValue(id);
+    }
+    if(resolved == null) {
+      resolved = getPlaceholderAPIValue(id);
+    }
+    if(resolved == null) {
+      return null;
+    }
+    //values may contain placeholders too e.g. the plugin prefix, they are resolved once
+    if(!nested && resolved.indexOf('%') != -1) {
+      return getTemplate(resolved, "plugin_prefix".equals(id)).render(placeholder -> resolve(placeholder, true));
+    }
+    return format(resolved);
   }
 
   private String replace(String text, String search, java.util.function.Supplier<String> replacement) {
@@ -237,25 +334,17 @@ public class MessageBuilder {
 
   public String build() {
     colorChatIssue();
-    formatPlugin();
-    formatPlaceholderAPI();
-    if(player != null && arena != null) {
-      formatExternalPlayerAndArena();
-    }
-    if(player != null) {
-      formatExternalPlayer();
-    }
-    if(arena != null) {
-      formatExternalArena();
-    }
-    formatSpecialChars();
-    message = messageColor + message;
-    colorRawMessage();
-    return message;
+    return getTemplate(messageColor + message, cacheable).render(id -> resolve(id, false));
   }
 
+  /**
+   * @return the message with the values set on this builder but without colors translated
+   */
   public String getRaw() {
-    return message;
+    if(message.indexOf('%') == -1) {
+      return message;
+    }
+    return MessageTemplate.compile(message, UnaryOperator.identity()).render(this::getBoundValue);
   }
 
   public void sendPlayer() {
@@ -265,15 +354,15 @@ public class MessageBuilder {
   }
 
   public void send(CommandSender commandSender) {
-    build();
-    if(message != null && !message.isEmpty()) {
+    String message = build();
+    if(!message.isEmpty()) {
       commandSender.sendMessage(message);
     }
   }
 
   public void send(PluginArena arena) {
-    build();
-    if(message != null && !message.isEmpty()) {
+    String message = build();
+    if(!message.isEmpty()) {
       for(Player arenaPlayer : arena.getPlayers()) {
         arenaPlayer.sendMessage(message);
       }
@@ -287,8 +376,8 @@ public class MessageBuilder {
   }
 
   public void broadcast() {
-    build();
-    if(message != null && arena != null && !message.isEmpty()) {
+    String message = build();
+    if(arena != null && !message.isEmpty()) {
       for(Player onlinePlayer : Bukkit.getOnlinePlayers()) {
         onlinePlayer.sendMessage(message);
       }
@@ -304,26 +393,26 @@ public class MessageBuilder {
   }
 
   public String getMessageIssueColor() {
-    return messageIssueColor;
+    return palette.getMessageIssueColor();
   }
 
   public String getMessageSpecialCharBefore() {
-    return messageSpecialCharBefore;
+    return palette.getMessageSpecialCharBefore();
   }
 
   public String getPlaceholderColorNumber() {
-    return placeholderColorNumber;
+    return palette.getPlaceholderColorNumber();
   }
 
   public String getPlaceholderColorOther() {
-    return placeholderColorOther;
+    return palette.getPlaceholderColorOther();
   }
 
   public String getPlaceholderColorPlayer() {
-    return placeholderColorPlayer;
+    return palette.getPlaceholderColorPlayer();
   }
 
   public String getPlaceholderColorValue() {
-    return placeholderColorValue;
+    return palette.getPlaceholderColorValue();
   }
 }
@@ -0,0 +1,88 @@
+/*
+ *  MiniGamesBox - Library box with massive content that could be seen as minigames core.
+ *  Copyright (C) 2023 Plugily Projects - maintained by Tigerpanzer_02 and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package plugily.projects.minigamesbox.classic.handlers.language;
+
+/**
+ * The chat colors of the language, loaded once per language load and shared by every message builder
+ */
+public final class MessagePalette {
+
+  /**
+   * Palette without any colors for messages built without auto color
+   */
+  public static final MessagePalette NO_COLOR = new MessagePalette("", "", "", "", "", "", "");
+
+  private final String placeholderColorValue;
+  private final String placeholderColorNumber;
+  private final String placeholderColorPlayer;
+  private final String placeholderColorOther;
+  private final String messageColor;
+  private final String messageIssueColor;
+  private final String messageSpecialCharBefore;
+
+  private MessagePalette(String placeholderColorValue, String placeholderColorNumber, String placeholderColorPlayer, String placeholderColorOther,
+                         String messageColor, String messageIssueColor, String messageSpecialCharBefore) {
+    this.placeholderColorValue = placeholderColorValue;
+    this.placeholderColorNumber = placeholderColorNumber;
+    this.placeholderColorPlayer = placeholderColorPlayer;
+    this.placeholderColorOther = placeholderColorOther;
+    this.messageColor = messageColor;
+    this.messageIssueColor = messageIssueColor;
+    this.messageSpecialCharBefore = messageSpecialCharBefore;
+  }
+
+  static MessagePalette load(LanguageManager languageManager, MessageManager messageManager) {
+    return new MessagePalette(languageManager.getLanguageMessage(messageManager.getPath("COLOR_PLACEHOLDER_VALUE")),
+        languageManager.getLanguageMessage(messageManager.getPath("COLOR_PLACEHOLDER_NUMBER")),
+        languageManager.getLanguageMessage(messageManager.getPath("COLOR_PLACEHOLDER_PLAYER")),
+        languageManager.getLanguageMessage(messageManager.getPath("COLOR_PLACEHOLDER_OTHER")),
+        languageManager.getLanguageMessage(messageManager.getPath("COLOR_CHAT_MESSAGES")),
+        languageManager.getLanguageMessage(messageManager.getPath("COLOR_CHAT_ISSUE")),
+        languageManager.getLanguageMessage(messageManager.getPath("COLOR_CHAT_SPECIAL_BEFORE")));
+  }
+
+  public String getPlaceholderColorValue() {
+    return placeholderColorValue;
+  }
+
+  public String getPlaceholderColorNumber() {
+    return placeholderColorNumber;
+  }
+
+  public String getPlaceholderColorPlayer() {
+    return placeholderColorPlayer;
+  }
+
+  public String getPlaceholderColorOther() {
+    return placeholderColorOther;
+  }
+
+  public String getMessageColor() {
+    return messageColor;
+  }
+
+  public String getMessageIssueColor() {
+    return messageIssueColor;
+  }
+
+  public String getMessageSpecialCharBefore() {
+    return messageSpecialCharBefore;
+  }
+
+}
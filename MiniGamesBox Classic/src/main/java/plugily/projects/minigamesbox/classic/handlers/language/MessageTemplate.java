@@ -0,0 +1,157 @@
+/*
+ *  MiniGamesBox - Library box with massive content that could be seen as minigames core.
+ *  Copyright (C) 2023 Plugily Projects - maintained by Tigerpanzer_02 and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package plugily.projects.minigamesbox.classic.handlers.language;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * A message split once into literal text and %placeholder% segments.
+ * The literal text is formatted (special chars, colors) while compiling,
+ * rendering only resolves the placeholders which are part of the message.
+ */
+public final class MessageTemplate {
+
+  private static final int MAX_CACHED_TEMPLATES = 2048;
+  private static final Map<String, MessageTemplate> CACHE = new ConcurrentHashMap<>();
+
+  //literals.length == placeholders.length + 1
+  private final String[] literals;
+  private final String[] placeholders;
+  //formatted %placeholder% used if the placeholder could not be resolved
+  private final String[] unresolved;
+  private final int length;
+
+  private MessageTemplate(String text, UnaryOperator<String> formatter) {
+    List<String> literalList = new ArrayList<>();
+    List<String> placeholderList = new ArrayList<>();
+    StringBuilder literal = new StringBuilder();
+    int index = 0;
+    while(index < text.length()) {
+      int start = text.indexOf('%', index);
+      if(start == -1) {
+        literal.append(text, index, text.length());
+        break;
+      }
+      int end = text.indexOf('%', start + 1);
+      if(end == -1 || !isPlaceholderId(text, start + 1, end)) {
+        //lone percent sign e.g. "50%"
+        literal.append(text, index, start + 1);
+        index = start + 1;
+        continue;
+      }
+      literal.append(text, index, start);
+      literalList.add(formatter.apply(literal.toString()));
+      literal.setLength(0);
+      placeholderList.add(text.substring(start + 1, end));
+      index = end + 1;
+    }
+    literalList.add(formatter.apply(literal.toString()));
+    this.literals = literalList.toArray(new String[0]);
+    this.placeholders = placeholderList.toArray(new String[0]);
+    this.unresolved = new String[placeholders.length];
+    int length = 0;
+    for(int i = 0; i < placeholders.length; i++) {
+      unresolved[i] = formatter.apply('%' + placeholders[i] + '%');
+      length += literals[i].length() + 16;
+    }
+    this.length = length + literals[literals.length - 1].length();
+  }
+
+  private static boolean isPlaceholderId(String text, int start, int end) {
+    if(start == end) {
+      return false;
+    }
+    for(int i = start; i < end; i++) {
+      if(Character.isWhitespace(text.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Compiles a message without caching it e.g. for messages containing player input
+   *
+   * @param text      the message
+   * @param formatter applied to every literal part of the message
+   * @return the compiled template
+   */
+  public static MessageTemplate compile(String text, UnaryOperator<String> formatter) {
+    return new MessageTemplate(text, formatter);
+  }
+
+  /**
+   * Get the cached template of a message, compiles it on the first call.
+   * The key must contain everything the formatter depends on.
+   *
+   * @param key       the cache key
+   * @param text      the message
+   * @param formatter applied to every literal part of the message
+   * @return the compiled template
+   */
+  public static MessageTemplate getCached(String key, String text, UnaryOperator<String> formatter) {
+    MessageTemplate template = CACHE.get(key);
+    if(template != null) {
+      return template;
+    }
+    template = new MessageTemplate(text, formatter);
+    //language strings are limited, anything above is most likely not a language string
+    if(CACHE.size() >= MAX_CACHED_TEMPLATES) {
+      CACHE.clear();
+    }
+    MessageTemplate cached = CACHE.putIfAbsent(key, template);
+    return cached == null ? template : cached;
+  }
+
+  /**
+   * Removes all cached templates e.g. after the language was reloaded
+   */
+  public static void clearCache() {
+    CACHE.clear();
+  }
+
+  /**
+   * Renders the message
+   *
+   * @param resolver gets the placeholder id without percent signs, returns the formatted value or null to keep the placeholder
+   * @return the rendered message
+   */
+  public String render(Function<String, String> resolver) {
+    if(placeholders.length == 0) {
+      return literals[0];
+    }
+    StringBuilder builder = new StringBuilder(length);
+    for(int i = 0; i < placeholders.length; i++) {
+      builder.append(literals[i]);
+      String value = resolver.apply(placeholders[i]);
+      builder.append(value == null ? unresolved[i] : value);
+    }
+    return builder.append(literals[literals.length - 1]).toString();
+  }
+
+  public boolean hasPlaceholders() {
+    return placeholders.length != 0;
+  }
+
+}
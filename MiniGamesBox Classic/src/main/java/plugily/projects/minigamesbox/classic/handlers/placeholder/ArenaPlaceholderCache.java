@@ -0,0 +1,76 @@
+/*
+ *  MiniGamesBox - Library box with massive content that could be seen as minigames core.
+ *  Copyright (C) 2023 Plugily Projects - maintained by Tigerpanzer_02 and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package plugily.projects.minigamesbox.classic.handlers.placeholder;
+
+import org.bukkit.Bukkit;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Values of arena placeholders computed at most once per server tick and arena,
+ * shared by every scoreboard, boss bar, action bar and sign rendered in that tick.
+ * Player placeholders must not be cached here.
+ * The arena drops the values as soon as its players, state, timer or options change.
+ */
+public class ArenaPlaceholderCache {
+
+  //counted by the placeholder manager, only read on the main thread
+  private static long currentTick;
+
+  private final Map<String, String> values = new HashMap<>();
+  private volatile long tick = -1;
+
+  static void nextTick() {
+    currentTick++;
+  }
+
+  /**
+   * Get the value of this tick, computed on the first call.
+   * Calls off the main thread are not cached
+   *
+   * @param key      the placeholder
+   * @param supplier computes the value
+   * @return the value
+   */
+  public String get(String key, Supplier<String> supplier) {
+    if(!Bukkit.isPrimaryThread()) {
+      return supplier.get();
+    }
+    if(tick != currentTick) {
+      values.clear();
+      tick = currentTick;
+    }
+    String value = values.get(key);
+    if(value == null && !values.containsKey(key)) {
+      value = supplier.get();
+      values.put(key, value);
+    }
+    return value;
+  }
+
+  /**
+   * Drops the values, they get computed again on the next call
+   */
+  public void invalidate() {
+    tick = -1;
+  }
+
+}
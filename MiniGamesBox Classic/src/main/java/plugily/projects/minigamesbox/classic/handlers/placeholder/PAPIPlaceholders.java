@@ -19,9 +19,11 @@
 package plugily.projects.minigamesbox.classic.handlers.placeholder;
 
 import me.clip.placeholderapi.expansion.PlaceholderExpansion;
+import org.bukkit.OfflinePlayer;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 import plugily.projects.minigamesbox.classic.PluginMain;
+import plugily.projects.minigamesbox.classic.api.StatisticType;
 import plugily.projects.minigamesbox.classic.arena.PluginArena;
 
 /**
@@ -59,12 +61,24 @@ public class PAPIPlaceholders extends PlaceholderExpansion {
   }
 
   @Override
-  public String onPlaceholderRequest(Player player, @NotNull String id) {
-    for(Placeholder placeholder : plugin.getPlaceholderManager().getRegisteredPAPIPlaceholders()) {
-      if(placeholder.getPlaceholderType() == Placeholder.PlaceholderType.ARENA) {
-        continue;
+  public String onRequest(OfflinePlayer player, @NotNull String id) {
+    if(player != null && !player.isOnline() && id.toLowerCase().startsWith("user_statistic_")) {
+      //stored statistics of offline players are answered from the cache, loading them never blocks
+      for(StatisticType statisticType : plugin.getStatsStorage().getStatistics().values()) {
+        if(id.equalsIgnoreCase("user_statistic_" + statisticType.getName())) {
+          Integer value = plugin.getUserManager().getOfflineStatsCache().getStatistic(player.getUniqueId(), statisticType);
+          return value == null ? "..." : Integer.toString(value);
+        }
       }
-      if(id.toLowerCase().equalsIgnoreCase(placeholder.getId())) {
+      return null;
+    }
+    return onPlaceholderRequest(player == null ? null : player.getPlayer(), id);
+  }
+
+  @Override
+  public String onPlaceholderRequest(Player player, @NotNull String id) {
+    for(Placeholder placeholder : plugin.getPlaceholderManager().getPAPIPlaceholders(id)) {
+      if(placeholder.getPlaceholderType() != Placeholder.PlaceholderType.ARENA) {
         return player == null ? placeholder.getValue() : placeholder.getValue(player);
       }
     }
@@ -77,13 +91,9 @@ public class PAPIPlaceholders extends PlaceholderExpansion {
     if(arena == null) {
       return null;
     }
-    for(Placeholder placeholder : plugin.getPlaceholderManager().getRegisteredPAPIPlaceholders()) {
-      if(placeholder.getPlaceholderType() == Placeholder.PlaceholderType.GLOBAL) {
-        continue;
-      }
-
-      if(("arena_" + data[2]).toLowerCase().equalsIgnoreCase(placeholder.getId())) {
-        return player == null ? placeholder.getValue(arena) : placeholder.getValue(player, arena);
+    for(Placeholder placeholder : plugin.getPlaceholderManager().getPAPIPlaceholders("arena_" + data[2])) {
+      if(placeholder.getPlaceholderType() != Placeholder.PlaceholderType.GLOBAL) {
+        return player == null ? arena.getPlaceholderCache().get("papi:" + placeholder.getId(), () -> placeholder.getValue(arena)) : placeholder.getValue(player, arena);
       }
     }
     return null;
@@ -26,7 +26,10 @@ import plugily.projects.minigamesbox.classic.arena.PluginArena;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 /**
  * @author Tigerpanzer_02
@@ -38,6 +41,9 @@ public class PlaceholderManager {
   private final PluginMain plugin;
   private List<Placeholder> registeredPAPIPlaceholders = new ArrayList<>();
   private List<Placeholder> registeredInternalPlaceholders = new ArrayList<>();
+  //placeholders by id in registration order, PAPI ids are lower case as they are case insensitive
+  private final Map<String, List<Placeholder>> internalPlaceholdersById = new HashMap<>();
+  private final Map<String, List<Placeholder>> papiPlaceholdersById = new HashMap<>();
 
   public PlaceholderManager(PluginMain plugin) {
     this.plugin = plugin;
@@ -46,6 +52,7 @@ public class PlaceholderManager {
       new PAPIPlaceholders(plugin);
     }
     insertDefaultPlaceholders();
+    Bukkit.getScheduler().runTaskTimer(plugin, ArenaPlaceholderCache::nextTick, 1, 1);
   }
 
   private void insertDefaultPlaceholders() {
@@ -161,20 +168,73 @@ public class PlaceholderManager {
   public void registerPlaceholder(Placeholder placeholder) {
     switch(placeholder.getPlaceholderExecutor()) {
       case PLACEHOLDER_API:
-        registeredPAPIPlaceholders.add(placeholder);
+        registerPAPIPlaceholder(placeholder);
         break;
       case INTERNAL:
-        registeredInternalPlaceholders.add(placeholder);
+        registerInternalPlaceholder(placeholder);
         break;
       case ALL:
-        registeredPAPIPlaceholders.add(placeholder);
-        registeredInternalPlaceholders.add(placeholder);
+        registerPAPIPlaceholder(placeholder);
+        registerInternalPlaceholder(placeholder);
         break;
       default:
         break;
     }
   }
 
+  private void registerPAPIPlaceholder(Placeholder placeholder) {
+    registeredPAPIPlaceholders.add(placeholder);
+    papiPlaceholdersById.computeIfAbsent(placeholder.getId().toLowerCase(Locale.ENGLISH), id -> new ArrayList<>()).add(placeholder);
+  }
+
+  private void registerInternalPlaceholder(Placeholder placeholder) {
+    registeredInternalPlaceholders.add(placeholder);
+    internalPlaceholdersById.computeIfAbsent(placeholder.getId(), id -> new ArrayList<>()).add(placeholder);
+  }
+
+  /**
+   * Removes a registered placeholder
+   *
+   * @param placeholder the placeholder to remove
+   */
+  public void unregisterPlaceholder(Placeholder placeholder) {
+    if(registeredPAPIPlaceholders.remove(placeholder)) {
+      unindex(papiPlaceholdersById, placeholder.getId().toLowerCase(Locale.ENGLISH), placeholder);
+    }
+    if(registeredInternalPlaceholders.remove(placeholder)) {
+      unindex(internalPlaceholdersById, placeholder.getId(), placeholder);
+    }
+  }
+
+  private void unindex(Map<String, List<Placeholder>> index, String id, Placeholder placeholder) {
+    List<Placeholder> placeholders = index.get(id);
+    if(placeholders != null && placeholders.remove(placeholder) && placeholders.isEmpty()) {
+      index.remove(id);
+    }
+  }
+
+  /**
+   * Get the internal placeholders with the id
+   *
+   * @param id the id as used in messages, without percent signs
+   * @return the placeholders in registration order
+   */
+  public List<Placeholder> getInternalPlaceholders(String id) {
+    List<Placeholder> placeholders = internalPlaceholdersById.get(id);
+    return placeholders == null ? Collections.emptyList() : Collections.unmodifiableList(placeholders);
+  }
+
+  /**
+   * Get the PlaceholderAPI placeholders with the id, ignoring case
+   *
+   * @param id the id without the plugin identifier
+   * @return the placeholders in registration order
+   */
+  public List<Placeholder> getPAPIPlaceholders(String id) {
+    List<Placeholder> placeholders = papiPlaceholdersById.get(id.toLowerCase(Locale.ENGLISH));
+    return placeholders == null ? Collections.emptyList() : Collections.unmodifiableList(placeholders);
+  }
+
   public List<Placeholder> getRegisteredInternalPlaceholders() {
     return Collections.unmodifiableList(registeredInternalPlaceholders);
   }
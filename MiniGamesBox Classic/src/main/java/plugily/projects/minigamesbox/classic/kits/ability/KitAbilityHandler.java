@@ -43,10 +43,13 @@ public class KitAbilityHandler implements Listener {
     if(!(event.getWhoClicked() instanceof Player)) {
       return;
     }
-    User user = plugin.getUserManager().getUser((Player) event.getWhoClicked());
     if(!plugin.getArenaRegistry().isInArena((Player) event.getWhoClicked())) {
       return;
     }
+    User user = plugin.getUserManager().getUserIfPresent(event.getWhoClicked().getUniqueId());
+    if(user == null) {
+      return;
+    }
     for(KitAbility kitAbility : plugin.getKitAbilityManager().getKitAbilities().values()) {
       if(user.getKit().hasAbility(kitAbility)) {
         kitAbility.getClickConsumer().accept(event);
@@ -62,8 +65,9 @@ public class KitAbilityHandler implements Listener {
     if(!event.hasItem()) {
       return;
     }
+    User user = plugin.getUserManager().getUser(event.getPlayer());
     for(KitAbility kitAbility : plugin.getKitAbilityManager().getKitAbilities().values()) {
-      if(plugin.getUserManager().getUser(event.getPlayer()).getKit().hasAbility(kitAbility)) {
+      if(user.getKit().hasAbility(kitAbility)) {
         kitAbility.getInteractConsumer().accept(event);
       }
     }
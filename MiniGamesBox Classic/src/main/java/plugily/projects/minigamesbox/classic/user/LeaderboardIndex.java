@@ -0,0 +1,161 @@
+/*
+ *  MiniGamesBox - Library box with massive content that could be seen as minigames core.
+ *  Copyright (C) 2023 Plugily Projects - maintained by Tigerpanzer_02 and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package plugily.projects.minigamesbox.classic.user;
+
+import org.bukkit.Bukkit;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import plugily.projects.minigamesbox.classic.PluginMain;
+import plugily.projects.minigamesbox.classic.api.StatisticType;
+import plugily.projects.minigamesbox.classic.api.event.player.PlugilyPlayerStatisticBatchChangeEvent;
+import plugily.projects.minigamesbox.classic.user.data.UserDatabase;
+import plugily.projects.minigamesbox.sorter.RankIndex;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In memory ranking of every persistent statistic.
+ * <p>
+ * Each statistic is seeded once from the user database and afterwards kept up to date
+ * by statistic changes, so leaderboards never need to load and sort all players again.
+ * Seeding always runs asynchronously, until it finished only changed values are ranked.
+ */
+public class LeaderboardIndex implements Listener {
+
+  private final PluginMain plugin;
+  private final Map<StatisticType, RankIndex<UUID>> indexes = new ConcurrentHashMap<>();
+  private final Set<StatisticType> seeded = ConcurrentHashMap.newKeySet();
+  private final Set<StatisticType> seeding = ConcurrentHashMap.newKeySet();
+
+  public LeaderboardIndex(PluginMain plugin) {
+    this.plugin = plugin;
+    plugin.getServer().getPluginManager().registerEvents(this, plugin);
+    //plugin specific statistics are registered on enable, seed them once the server is running
+    Bukkit.getScheduler().runTaskLaterAsynchronously(plugin, () -> {
+      for(StatisticType statisticType : plugin.getStatsStorage().getStatistics().values()) {
+        if(statisticType.isPersistent() && startSeed(statisticType)) {
+          seed(statisticType);
+        }
+      }
+    }, 20);
+  }
+
+  @EventHandler(priority = EventPriority.LOWEST)
+  public void onStatisticChange(PlugilyPlayerStatisticBatchChangeEvent event) {
+    UUID uuid = event.getPlayer().getUniqueId();
+    event.getValues().forEach((statisticType, value) -> {
+      if(statisticType.isPersistent()) {
+        RankIndex<UUID> index = indexes.computeIfAbsent(statisticType, key -> new RankIndex<>(UserDatabase.TIE_BREAK));
+        synchronized(index) {
+          index.update(uuid, value);
+        }
+      }
+    });
+  }
+
+  /**
+   * Get the best players of a statistic
+   *
+   * @param statisticType statistic to rank by
+   * @param limit         maximum amount of entries
+   * @param offset        amount of best players to skip
+   * @return entries of UUID and value ordered from highest to lowest value
+   */
+  public List<Map.Entry<UUID, Integer>> getTop(StatisticType statisticType, int limit, int offset) {
+    RankIndex<UUID> index = getIndex(statisticType);
+    synchronized(index) {
+      return index.getTop(limit, offset);
+    }
+  }
+
+  /**
+   * Get the position of a player in a statistic
+   *
+   * @param uuid          the player
+   * @param statisticType statistic to rank by
+   * @return position starting at 1, 0 if the player has no value stored
+   */
+  public int getRank(UUID uuid, StatisticType statisticType) {
+    RankIndex<UUID> index = getIndex(statisticType);
+    synchronized(index) {
+      return index.getRank(uuid);
+    }
+  }
+
+  /**
+   * @param statisticType statistic to rank by
+   * @return amount of ranked players
+   */
+  public int getSize(StatisticType statisticType) {
+    RankIndex<UUID> index = getIndex(statisticType);
+    synchronized(index) {
+      return index.size();
+    }
+  }
+
+  public void removeStatistic(StatisticType statisticType) {
+    indexes.remove(statisticType);
+    seeded.remove(statisticType);
+  }
+
+  /**
+   * Never loads the stored values on the calling thread, a missing seed is started in background
+   * and the index is served as it is until the seed finished
+   */
+  private RankIndex<UUID> getIndex(StatisticType statisticType) {
+    if(startSeed(statisticType) && plugin.isEnabled()) {
+      Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> seed(statisticType));
+    }
+    return indexes.computeIfAbsent(statisticType, key -> new RankIndex<>(UserDatabase.TIE_BREAK));
+  }
+
+  /**
+   * @return true if the caller has to seed the statistic, false if it is seeded or seeding already
+   */
+  private boolean startSeed(StatisticType statisticType) {
+    return !seeded.contains(statisticType) && seeding.add(statisticType);
+  }
+
+  private void seed(StatisticType statisticType) {
+    try {
+      long start = System.currentTimeMillis();
+      Map<UUID, Integer> stored = plugin.getUserManager().getDatabase().getStats(statisticType);
+      RankIndex<UUID> index = indexes.computeIfAbsent(statisticType, key -> new RankIndex<>(UserDatabase.TIE_BREAK));
+      synchronized(index) {
+        if(!seeded.add(statisticType)) {
+          return;
+        }
+        //values changed since the start are newer than the stored ones
+        stored.forEach((uuid, value) -> {
+          if(!index.contains(uuid)) {
+            index.update(uuid, value);
+          }
+        });
+      }
+      plugin.getDebugger().debug("Seeded leaderboard of {0} with {1} players took {2}ms", statisticType.getName(), stored.size(), System.currentTimeMillis() - start);
+    } finally {
+      seeding.remove(statisticType);
+    }
+  }
+}
@@ -0,0 +1,169 @@
+/*
+ *  MiniGamesBox - Library box with massive content that could be seen as minigames core.
+ *  Copyright (C) 2023 Plugily Projects - maintained by Tigerpanzer_02 and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package plugily.projects.minigamesbox.classic.user;
+
+import org.bukkit.Bukkit;
+import org.jetbrains.annotations.Nullable;
+import plugily.projects.minigamesbox.classic.PluginMain;
+import plugily.projects.minigamesbox.classic.api.StatisticType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Bounded cache of the stored statistics of players which are not online e.g. for /stats of other players,
+ * profile menus or placeholders. Lookups never block, missing or expired statistics are fetched
+ * asynchronously from the user database and handed to the callbacks on the main thread.
+ * Online players are always answered with their live statistics.
+ */
+public class OfflineStatsCache {
+
+  private final PluginMain plugin;
+  private final long expireMillis;
+  private final Map<UUID, CachedStatistics> statistics;
+  //callbacks waiting for a running fetch, only accessed on the main thread
+  private final Map<UUID, List<Consumer<Map<StatisticType, Integer>>>> loading = new HashMap<>();
+
+  public OfflineStatsCache(PluginMain plugin) {
+    this.plugin = plugin;
+    this.expireMillis = Math.max(1, plugin.getConfig().getLong("Stats.Offline-Cache-Time", 60)) * 1000;
+    int maxSize = Math.max(16, plugin.getConfig().getInt("Stats.Offline-Cache-Size", 500));
+    //access ordered, the least recently requested player is dropped first
+    this.statistics = new LinkedHashMap<UUID, CachedStatistics>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<UUID, CachedStatistics> eldest) {
+        return size() > maxSize;
+      }
+    };
+  }
+
+  /**
+   * Get the statistics of a player, the callback is called on the main thread once they are known.
+   * Must be called on the main thread.
+   *
+   * @param uuid     the player
+   * @param callback receives the statistics, null if they could not be loaded
+   */
+  public void getStatistics(UUID uuid, Consumer<Map<StatisticType, Integer>> callback) {
+    Map<StatisticType, Integer> cached = getCachedStatistics(uuid);
+    if(cached != null) {
+      callback.accept(cached);
+      return;
+    }
+    List<Consumer<Map<StatisticType, Integer>>> callbacks = loading.get(uuid);
+    if(callbacks != null) {
+      callbacks.add(callback);
+      return;
+    }
+    callbacks = new ArrayList<>();
+    callbacks.add(callback);
+    loading.put(uuid, callbacks);
+    Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+      Map<StatisticType, Integer> values = plugin.getUserManager().getDatabase().fetchStatistics(uuid);
+      Bukkit.getScheduler().runTask(plugin, () -> {
+        if(values != null) {
+          synchronized(statistics) {
+            statistics.put(uuid, new CachedStatistics(values));
+          }
+        }
+        List<Consumer<Map<StatisticType, Integer>>> waiting = loading.remove(uuid);
+        Map<StatisticType, Integer> result = values == null ? null : Collections.unmodifiableMap(values);
+        if(waiting != null) {
+          waiting.forEach(consumer -> consumer.accept(result));
+        }
+      });
+    });
+  }
+
+  /**
+   * Get the statistic of a player without waiting, a missing value gets fetched in background
+   *
+   * @param uuid          the player
+   * @param statisticType the statistic
+   * @return the value or null if it is not loaded yet
+   */
+  @Nullable
+  public Integer getStatistic(UUID uuid, StatisticType statisticType) {
+    Map<StatisticType, Integer> cached = getCachedStatistics(uuid);
+    if(cached != null) {
+      return cached.getOrDefault(statisticType, 0);
+    }
+    if(Bukkit.isPrimaryThread()) {
+      getStatistics(uuid, values -> {
+      });
+    } else {
+      Bukkit.getScheduler().runTask(plugin, () -> getStatistics(uuid, values -> {
+      }));
+    }
+    return null;
+  }
+
+  @Nullable
+  private Map<StatisticType, Integer> getCachedStatistics(UUID uuid) {
+    User user = plugin.getUserManager().getUserIfPresent(uuid);
+    if(user != null && user.getPlayer() != null) {
+      Map<StatisticType, Integer> values = new HashMap<>();
+      plugin.getStatsStorage().getStatistics().values().forEach(statisticType -> values.put(statisticType, user.getStatistic(statisticType)));
+      return values;
+    }
+    synchronized(statistics) {
+      CachedStatistics cached = statistics.get(uuid);
+      if(cached == null) {
+        return null;
+      }
+      if(cached.isExpired(expireMillis)) {
+        statistics.remove(uuid);
+        return null;
+      }
+      return Collections.unmodifiableMap(cached.values);
+    }
+  }
+
+  /**
+   * Drops the cached statistics of a player e.g. once the player joined or left
+   *
+   * @param uuid the player
+   */
+  public void invalidate(UUID uuid) {
+    synchronized(statistics) {
+      statistics.remove(uuid);
+    }
+  }
+
+  private static class CachedStatistics {
+
+    private final Map<StatisticType, Integer> values;
+    private final long fetchedAt = System.currentTimeMillis();
+
+    private CachedStatistics(Map<StatisticType, Integer> values) {
+      this.values = values;
+    }
+
+    private boolean isExpired(long expireMillis) {
+      return System.currentTimeMillis() - fetchedAt > expireMillis;
+    }
+  }
+
+}
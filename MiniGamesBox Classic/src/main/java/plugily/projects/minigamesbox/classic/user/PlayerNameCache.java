@@ -0,0 +1,152 @@
+/*
+ *  MiniGamesBox - Library box with massive content that could be seen as minigames core.
+ *  Copyright (C) 2023 Plugily Projects - maintained by Tigerpanzer_02 and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package plugily.projects.minigamesbox.classic.user;
+
+import org.bukkit.Bukkit;
+import org.jetbrains.annotations.Nullable;
+import plugily.projects.minigamesbox.classic.PluginMain;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded cache of player names for leaderboards.
+ * Lookups never block, missing names are loaded asynchronously from the stats storage
+ * and the leaderboards are refreshed once they are known.
+ * Names of joining players are stored in the stats storage, so they are known after a restart.
+ */
+public class PlayerNameCache {
+
+  private final PluginMain plugin;
+  private final Map<UUID, String> names;
+  private final Set<UUID> loading = ConcurrentHashMap.newKeySet();
+  //names shown on holograms at once, kept on top of the configured size so a refresh never drops its own names
+  private volatile int reserved;
+
+  public PlayerNameCache(PluginMain plugin) {
+    this.plugin = plugin;
+    int maxSize = Math.max(16, plugin.getConfig().getInt("Stats.Name-Cache-Size", 1000));
+    //access ordered, the least recently shown name is dropped first
+    this.names = new LinkedHashMap<UUID, String>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<UUID, String> eldest) {
+        return size() > maxSize + reserved;
+      }
+    };
+  }
+
+  /**
+   * Reserves room for the names which are shown at once e.g. on all leaderboard holograms
+   *
+   * @param entries amount of names shown at once
+   */
+  public void reserve(int entries) {
+    reserved = Math.max(0, entries);
+  }
+
+  /**
+   * Get the cached name of a player, a missing name gets loaded in background
+   * and all leaderboards are updated afterwards
+   *
+   * @param uuid the player
+   * @return the name or null if it is not known (yet)
+   */
+  @Nullable
+  public String getName(UUID uuid) {
+    String name;
+    synchronized(names) {
+      name = names.get(uuid);
+    }
+    if(name == null) {
+      fetch(Collections.singletonList(uuid), () -> {
+        if(plugin.getLeaderboardRegistry() != null) {
+          plugin.getLeaderboardRegistry().updateHolograms();
+        }
+      });
+      return null;
+    }
+    return name.isEmpty() ? null : name;
+  }
+
+  /**
+   * Write through of a known name e.g. on join, replaces old names after a name change
+   *
+   * @param uuid the player
+   * @param name the current name
+   */
+  public void update(UUID uuid, String name) {
+    String old;
+    synchronized(names) {
+      old = names.put(uuid, name);
+    }
+    if(name.equals(old)) {
+      return;
+    }
+    if(old != null && !old.isEmpty()) {
+      plugin.getDebugger().debug("Player {0} changed name from {1} to {2}", uuid, old, name);
+    }
+    plugin.getUserManager().getDatabase().savePlayerName(uuid, name);
+  }
+
+  /**
+   * Loads the names of the players which are not cached yet asynchronously
+   *
+   * @param uuids    the players
+   * @param callback called on the main thread once the names are cached
+   */
+  public void load(Collection<UUID> uuids, Runnable callback) {
+    if(!fetch(uuids, callback)) {
+      callback.run();
+    }
+  }
+
+  private boolean fetch(Collection<UUID> uuids, Runnable callback) {
+    List<UUID> missing = new ArrayList<>();
+    synchronized(names) {
+      for(UUID uuid : uuids) {
+        if(!names.containsKey(uuid) && loading.add(uuid)) {
+          missing.add(uuid);
+        }
+      }
+    }
+    if(missing.isEmpty()) {
+      return false;
+    }
+    Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+      Map<UUID, String> loaded = plugin.getUserManager().getDatabase().getPlayerNames(missing);
+      synchronized(names) {
+        for(UUID uuid : missing) {
+          //unknown players are cached as empty name to not look them up on every refresh
+          names.putIfAbsent(uuid, loaded.getOrDefault(uuid, ""));
+        }
+      }
+      missing.forEach(loading::remove);
+      Bukkit.getScheduler().runTask(plugin, callback);
+    });
+    return true;
+  }
+
+}
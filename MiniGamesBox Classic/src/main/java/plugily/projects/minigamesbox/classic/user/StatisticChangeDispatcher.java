@@ -0,0 +1,93 @@
+/*
+ *  MiniGamesBox - Library box with massive content that could be seen as minigames core.
+ *  Copyright (C) 2023 Plugily Projects - maintained by Tigerpanzer_02 and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package plugily.projects.minigamesbox.classic.user;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import plugily.projects.minigamesbox.classic.PluginMain;
+import plugily.projects.minigamesbox.classic.api.StatisticType;
+import plugily.projects.minigamesbox.classic.api.event.player.PlugilyPlayerStatisticBatchChangeEvent;
+import plugily.projects.minigamesbox.classic.api.event.player.PlugilyPlayerStatisticChangeEvent;
+import plugily.projects.minigamesbox.classic.arena.PluginArena;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Collects statistic changes of users and calls the change events once per tick.
+ * Several changes of the same statistic within one tick are merged into one event
+ * holding the latest value.
+ */
+public class StatisticChangeDispatcher {
+
+  private final PluginMain plugin;
+  private final Map<UUID, Map<StatisticType, int[]>> pendingChanges = new ConcurrentHashMap<>();
+  private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+  public StatisticChangeDispatcher(PluginMain plugin) {
+    this.plugin = plugin;
+  }
+
+  /**
+   * Queues a statistic change, safe to call from any thread
+   *
+   * @param uuid          the player
+   * @param statisticType the changed statistic
+   * @param oldValue      value before the change
+   * @param newValue      value after the change
+   */
+  public void queue(UUID uuid, StatisticType statisticType, int oldValue, int newValue) {
+    pendingChanges.compute(uuid, (key, changes) -> {
+      Map<StatisticType, int[]> map = changes == null ? new LinkedHashMap<>() : changes;
+      int[] change = map.get(statisticType);
+      if(change == null) {
+        map.put(statisticType, new int[]{oldValue, newValue});
+      } else {
+        change[1] = newValue;
+      }
+      return map;
+    });
+    if(scheduled.compareAndSet(false, true)) {
+      Bukkit.getScheduler().runTask(plugin, this::dispatch);
+    }
+  }
+
+  private void dispatch() {
+    scheduled.set(false);
+    for(UUID uuid : pendingChanges.keySet()) {
+      Map<StatisticType, int[]> changes = pendingChanges.remove(uuid);
+      Player player = Bukkit.getPlayer(uuid);
+      if(changes == null || player == null) {
+        continue;
+      }
+      PluginArena arena = plugin.getArenaRegistry().getArena(player);
+      Map<StatisticType, Integer> values = new LinkedHashMap<>(changes.size());
+      Map<StatisticType, Integer> deltas = new LinkedHashMap<>(changes.size());
+      changes.forEach((statisticType, change) -> {
+        values.put(statisticType, change[1]);
+        deltas.put(statisticType, change[1] - change[0]);
+        Bukkit.getPluginManager().callEvent(new PlugilyPlayerStatisticChangeEvent(arena, player, statisticType, change[1]));
+      });
+      Bukkit.getPluginManager().callEvent(new PlugilyPlayerStatisticBatchChangeEvent(arena, player, values, deltas));
+    }
+  }
+}
@@ -22,7 +22,6 @@ import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import plugily.projects.minigamesbox.classic.PluginMain;
 import plugily.projects.minigamesbox.classic.api.StatisticType;
-import plugily.projects.minigamesbox.classic.api.event.player.PlugilyPlayerStatisticChangeEvent;
 import plugily.projects.minigamesbox.classic.arena.PluginArena;
 import plugily.projects.minigamesbox.classic.handlers.language.MessageBuilder;
 import plugily.projects.minigamesbox.classic.kits.basekits.Kit;
@@ -30,6 +29,8 @@ import plugily.projects.minigamesbox.classic.kits.basekits.Kit;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 /**
  * @author Tigerpanzer_02
@@ -44,7 +45,11 @@ public class User {
   private boolean spectator = false;
   private boolean permanentSpectator = false;
   private Kit kit;
-  private final Map<StatisticType, Integer> stats = new HashMap<>();
+  //values by StatisticType#getIndex, readable and writable from any thread without boxing.
+  //sized once on creation and never replaced, so no write can land in a discarded table
+  private final AtomicIntegerArray stats;
+  //fallback for statistic types which were never registered or registered after this user was created
+  private final Map<StatisticType, Integer> unindexedStats = new ConcurrentHashMap<>();
   private final Map<String, Double> cooldowns = new HashMap<>();
 
   @Deprecated
@@ -54,6 +59,7 @@ public class User {
 
   public User(UUID uuid) {
     this.uuid = uuid;
+    this.stats = new AtomicIntegerArray(plugin == null || plugin.getStatsStorage() == null ? 16 : Math.max(16, plugin.getStatsStorage().getStatisticCapacity()));
   }
 
   public UUID getUniqueId() {
@@ -93,6 +99,11 @@ public class User {
 
   public void setSpectator(boolean spectator) {
     this.spectator = spectator;
+    Player player = getPlayer();
+    PluginArena arena = player == null ? null : plugin.getArenaRegistry().getArena(player);
+    if(arena != null) {
+      arena.updateParticipant(player, spectator);
+    }
   }
 
   public boolean isPermanentSpectator() {
@@ -108,7 +119,11 @@ public class User {
   }
 
   public int getStatistic(StatisticType statisticType) {
-    return stats.computeIfAbsent(statisticType, t -> 0);
+    int index = statisticType.getIndex();
+    if(index < 0 || index >= stats.length()) {
+      return unindexedStats.getOrDefault(statisticType, 0);
+    }
+    return stats.get(index);
   }
 
   public void setStatistic(StatisticType statisticType, int value) {
@@ -120,27 +135,40 @@ public class User {
   }
 
   private void changeUserStatistic(StatisticType statisticType, int value) {
-    stats.put(statisticType, value);
+    int index = statisticType.getIndex();
+    Integer oldValue;
+    if(index < 0 || index >= stats.length()) {
+      oldValue = unindexedStats.put(statisticType, value);
+    } else {
+      oldValue = stats.getAndSet(index, value);
+    }
+    callStatisticChange(statisticType, oldValue == null ? 0 : oldValue, value);
+  }
 
+  private void callStatisticChange(StatisticType statisticType, int oldValue, int value) {
     Player player = getPlayer();
 
     if(player != null) {
       plugin.getDebugger().debug("Set User {0} statistic to {1} for {2} ", statisticType.getName(), value, player.getName());
 
-      //statistics manipulation events are called async when using mysql
-      Bukkit.getScheduler().runTask(plugin, () -> {
-        Bukkit.getPluginManager().callEvent(new PlugilyPlayerStatisticChangeEvent(plugin.getArenaRegistry().getArena(player), player, statisticType, value));
-      });
+      //statistics manipulation events are called async when using mysql, the dispatcher calls them once per tick on the main thread
+      plugin.getUserManager().getStatisticChangeDispatcher().queue(uuid, statisticType, oldValue, value);
     }
   }
 
   public void adjustStatistic(StatisticType statisticType, int value) {
-    changeUserStatistic(statisticType, getStatistic(statisticType) + value);
+    int index = statisticType.getIndex();
+    int newValue;
+    if(index < 0 || index >= stats.length()) {
+      newValue = unindexedStats.merge(statisticType, value, Integer::sum);
+    } else {
+      newValue = stats.addAndGet(index, value);
+    }
+    callStatisticChange(statisticType, newValue - value, newValue);
   }
 
   public void adjustStatistic(String statistic, int value) {
-    StatisticType statisticType = plugin.getStatsStorage().getStatisticType(statistic);
-    changeUserStatistic(statisticType, getStatistic(statisticType) + value);
+    adjustStatistic(plugin.getStatsStorage().getStatisticType(statistic), value);
   }
 
   public void resetNonePersistentStatistics() {
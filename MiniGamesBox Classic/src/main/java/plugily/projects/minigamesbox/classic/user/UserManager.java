@@ -20,15 +20,26 @@ package plugily.projects.minigamesbox.classic.user;
 
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
+import org.jetbrains.annotations.Nullable;
 import plugily.projects.minigamesbox.classic.PluginMain;
 import plugily.projects.minigamesbox.classic.api.StatisticType;
 import plugily.projects.minigamesbox.classic.arena.PluginArena;
 import plugily.projects.minigamesbox.classic.handlers.language.MessageBuilder;
 import plugily.projects.minigamesbox.classic.user.data.FileStats;
+import plugily.projects.minigamesbox.classic.user.data.MysqlManager;
+import plugily.projects.minigamesbox.classic.user.data.NormalizedMysqlManager;
+import plugily.projects.minigamesbox.classic.user.data.ShardedFileStats;
+import plugily.projects.minigamesbox.classic.user.data.SqliteManager;
 import plugily.projects.minigamesbox.classic.user.data.UserDatabase;
+import plugily.projects.minigamesbox.classic.utils.configuration.ConfigUtils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
 
 /**
  * @author Tigerpanzer_02
@@ -37,33 +48,110 @@ import java.util.List;
  */
 public class UserManager {
 
+  private static final long PREFETCH_EXPIRE_MILLIS = 30_000;
+  private static final long USER_EVICT_INTERVAL = 20L * 60;
+  public static final List<String> STORAGE_TYPES = Arrays.asList("YAML", "SHARDED", "SQLITE", "MYSQL");
+
+  private String storageType;
   private final UserDatabase database;
-  private final List<User> users = new ArrayList<>();
+  //statistics fetched on pre login, adopted by loadStatistics once the player joined
+  private final Map<UUID, PrefetchedStatistics> prefetchedStatistics = new ConcurrentHashMap<>();
+  //only users of online players are kept, offline ones are evicted by evictOfflineUsers
+  private final Map<UUID, User> users = new ConcurrentHashMap<>();
   private final PluginMain plugin;
+  private final StatisticChangeDispatcher statisticChangeDispatcher;
+  private final PlayerNameCache playerNameCache;
+  private final OfflineStatsCache offlineStatsCache;
 
   public UserManager(PluginMain plugin) {
     this.plugin = plugin;
-    this.database = new FileStats(plugin);
+    this.statisticChangeDispatcher = new StatisticChangeDispatcher(plugin);
+    this.playerNameCache = new PlayerNameCache(plugin);
+    this.offlineStatsCache = new OfflineStatsCache(plugin);
+    this.database = createDatabase();
     Bukkit.getScheduler().runTaskLater(plugin, this::loadStatsForPlayersOnline, 40);
+    Bukkit.getScheduler().runTaskTimer(plugin, this::evictOfflineUsers, USER_EVICT_INTERVAL, USER_EVICT_INTERVAL);
+  }
+
+  private UserDatabase createDatabase() {
+    if(plugin.getConfigPreferences().getOption("DATABASE")) {
+      storageType = "MYSQL";
+    } else {
+      storageType = plugin.getConfig().getString("Stats.Storage", "YAML").toUpperCase();
+      if(!STORAGE_TYPES.contains(storageType)) {
+        plugin.getDebugger().debug(Level.WARNING, "Unknown stats storage {0}, using YAML", storageType);
+        storageType = "YAML";
+      }
+    }
+    return createDatabase(storageType);
+  }
+
+  /**
+   * Creates a new instance of a storage e.g. to migrate statistics, close it once it is not used anymore
+   *
+   * @param storage one of {@link #STORAGE_TYPES}
+   * @return the new storage
+   * @throws IllegalArgumentException if the storage type is unknown
+   */
+  public UserDatabase createDatabase(String storage) {
+    switch(storage.toUpperCase()) {
+      case "MYSQL":
+        if("NARROW".equalsIgnoreCase(ConfigUtils.getConfig(plugin, "mysql").getString("schema", "WIDE"))) {
+          return new NormalizedMysqlManager(plugin);
+        }
+        return new MysqlManager(plugin);
+      case "SHARDED":
+        return new ShardedFileStats(plugin);
+      case "SQLITE":
+        return new SqliteManager(plugin);
+      case "YAML":
+        return new FileStats(plugin);
+      default:
+        throw new IllegalArgumentException("Unknown stats storage " + storage);
+    }
+  }
+
+  /**
+   * @return the type of the storage in use, one of {@link #STORAGE_TYPES}
+   */
+  public String getStorageType() {
+    return storageType;
   }
 
   private void loadStatsForPlayersOnline() {
-    Bukkit.getServer().getOnlinePlayers().stream().map(this::getUser).forEach(this::loadStatistics);
+    List<UUID> online = new ArrayList<>();
+    Bukkit.getServer().getOnlinePlayers().forEach(player -> online.add(player.getUniqueId()));
+    Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+      online.forEach(this::prefetchStatistics);
+      Bukkit.getScheduler().runTask(plugin, () -> Bukkit.getServer().getOnlinePlayers().stream().map(this::getUser).forEach(this::loadStatistics));
+    });
   }
 
   public User getUser(Player player) {
-    java.util.UUID playerId = player.getUniqueId();
-
-    for(User user : users) {
-      if(user.getUniqueId().equals(playerId)) {
-        return user;
-      }
+    UUID playerId = player.getUniqueId();
+    User user = users.get(playerId);
+    if(user != null) {
+      return user;
+    }
+    if(!player.isOnline()) {
+      //never register users of players which already left, they would not be removed anymore
+      return new User(playerId);
     }
+    return users.computeIfAbsent(playerId, uuid -> {
+      plugin.getDebugger().debug("Registering new user {0} ({1})", uuid, player.getName());
+      return new User(uuid);
+    });
+  }
 
-    plugin.getDebugger().debug("Registering new user {0} ({1})", playerId, player.getName());
-    User user = new User(playerId);
-    users.add(user);
-    return user;
+  /**
+   * Get the user of a player without registering a new one
+   *
+   * @param uuid the player
+   * @return the registered user or null if there is none
+   */
+  @Nullable
+  public User getUserIfPresent(UUID uuid) {
+    return users.get(uuid);
   }
 
   public List<User> getUsers(PluginArena arena) {
@@ -120,15 +208,79 @@ public class UserManager {
   }
 
   public void loadStatistics(User user) {
+    PrefetchedStatistics prefetched = prefetchedStatistics.remove(user.getUniqueId());
+    if(prefetched != null && !prefetched.isExpired()) {
+      plugin.getDebugger().debug("Adopting prefetched statistics of {0}", user.getUniqueId());
+      prefetched.values.forEach(user::setStatistic);
+      return;
+    }
     database.loadStatistics(user);
   }
 
+  /**
+   * Loads the statistics of a player from the database and keeps them for a short time
+   * so they can be adopted by {@link #loadStatistics(User)} once the player joined.
+   * Blocking call, must be called off the main thread (e.g. AsyncPlayerPreLoginEvent)
+   *
+   * @param uuid the player to prefetch
+   */
+  public void prefetchStatistics(UUID uuid) {
+    //never adopt an older result from a previous login
+    prefetchedStatistics.remove(uuid);
+    prefetchedStatistics.values().removeIf(PrefetchedStatistics::isExpired);
+    Map<StatisticType, Integer> values = database.fetchStatistics(uuid);
+    if(values != null) {
+      prefetchedStatistics.put(uuid, new PrefetchedStatistics(values));
+    }
+  }
+
   public void removeUser(User user) {
-    users.remove(user);
+    users.remove(user.getUniqueId(), user);
+    offlineStatsCache.invalidate(user.getUniqueId());
+  }
+
+  /**
+   * Removes users of offline players which were registered again after their quit,
+   * their statistics were saved on quit already so they are not saved again
+   */
+  private void evictOfflineUsers() {
+    users.values().removeIf(user -> {
+      if(user.getPlayer() != null) {
+        return false;
+      }
+      plugin.getDebugger().debug("Evicting user {0} of offline player", user.getUniqueId());
+      return true;
+    });
   }
 
   public UserDatabase getDatabase() {
     return database;
   }
 
+  public StatisticChangeDispatcher getStatisticChangeDispatcher() {
+    return statisticChangeDispatcher;
+  }
+
+  public PlayerNameCache getPlayerNameCache() {
+    return playerNameCache;
+  }
+
+  public OfflineStatsCache getOfflineStatsCache() {
+    return offlineStatsCache;
+  }
+
+  private static class PrefetchedStatistics {
+
+    private final Map<StatisticType, Integer> values;
+    private final long fetchedAt = System.currentTimeMillis();
+
+    private PrefetchedStatistics(Map<StatisticType, Integer> values) {
+      this.values = values;
+    }
+
+    private boolean isExpired() {
+      return System.currentTimeMillis() - fetchedAt > PREFETCH_EXPIRE_MILLIS;
+    }
+  }
+
 }
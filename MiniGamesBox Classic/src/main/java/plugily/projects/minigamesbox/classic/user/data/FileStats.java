@@ -22,20 +22,45 @@ import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.Player;
 import org.bukkit.scheduler.BukkitTask;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import plugily.projects.minigamesbox.database.MysqlDatabase;
 import plugily.projects.minigamesbox.sorter.SortUtils;
+import plugily.projects.minigamesbox.sorter.TopCollector;
 import plugily.projects.minigamesbox.classic.PluginMain;
 import plugily.projects.minigamesbox.classic.api.StatisticType;
 import plugily.projects.minigamesbox.classic.user.User;
 import plugily.projects.minigamesbox.classic.utils.configuration.ConfigUtils;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Level;
 
 /**
+ * Flat file user database (stats.yml).
+ * <p>
+ * Changes are not written directly into the file. They are collected as dirty paths
+ * and written behind from an async task every few seconds, the file is replaced
+ * atomically through a temp file so a crash while saving never corrupts it.
+ *
  * @author Tigerpanzer_02
  * <p>
  * Created at 01.11.2021
@@ -45,16 +70,24 @@ public class FileStats implements UserDatabase {
   private final PluginMain plugin;
   private final FileConfiguration config;
   private final AtomicBoolean updateRequired = new AtomicBoolean(false);
+  //pending values which are not yet applied to the config
+  private final Map<String, Object> dirty = new ConcurrentHashMap<>();
+  //config is only modified by the writer, reads may happen while it gets serialized
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final BukkitTask saveTask;
+  //sorted players of the running readRecords stream, created on its first chunk
+  private volatile String[] recordOrder;
 
   public FileStats(PluginMain plugin) {
     this.plugin = plugin;
     this.config = ConfigUtils.getConfig(plugin, "stats");
+    long interval = Math.max(1, plugin.getConfig().getLong("Stats.Save-Interval", 30)) * 20;
+    this.saveTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::flush, interval, interval);
   }
 
   @Override
   public void saveStatistic(User user, StatisticType stat) {
-    config.set(user.getUniqueId().toString() + "." + stat.getName(), user.getStatistic(stat));
-    ConfigUtils.saveConfig(plugin, config, "stats");
+    set(user.getUniqueId().toString() + "." + stat.getName(), user.getStatistic(stat));
   }
 
   @Override
@@ -64,8 +97,16 @@ public class FileStats implements UserDatabase {
 
   @Override
   public void loadStatistics(User user) {
-    String uuid = user.getUniqueId().toString();
-    plugin.getStatsStorage().getStatistics().forEach((s, statisticType) -> user.setStatistic(statisticType, config.getInt(uuid + "." + statisticType.getName())));
+    fetchStatistics(user.getUniqueId()).forEach(user::setStatistic);
+  }
+
+  @NotNull
+  @Override
+  public Map<StatisticType, Integer> fetchStatistics(UUID uuid) {
+    Map<StatisticType, Integer> values = new HashMap<>();
+    String id = uuid.toString();
+    plugin.getStatsStorage().getStatistics().forEach((s, statisticType) -> values.put(statisticType, getInt(id + "." + statisticType.getName())));
+    return values;
   }
 
   @Override
@@ -82,17 +123,141 @@ public class FileStats implements UserDatabase {
   @Override
   public Map<UUID, Integer> getStats(StatisticType stat) {
     Map<UUID, Integer> stats = new TreeMap<>();
-    for(String string : config.getKeys(false)) {
-      if(string.equals("data-version")) {
-        continue;
+    forEachValue(stat, stats::put);
+    return SortUtils.sortByValue(stats);
+  }
+
+  @NotNull
+  @Override
+  public List<Map.Entry<UUID, Integer>> getTopStats(StatisticType stat, int limit, int offset) {
+    TopCollector<UUID> collector = new TopCollector<>(limit, offset, TIE_BREAK);
+    forEachValue(stat, collector::offer);
+    return collector.getResult();
+  }
+
+  @Override
+  public int getRank(UUID uuid, StatisticType stat) {
+    String path = uuid + "." + stat.getName();
+    if(!contains(path)) {
+      return 0;
+    }
+    int value = getInt(path);
+    int[] better = {0};
+    forEachValue(stat, (other, otherValue) -> {
+      if(otherValue > value || (otherValue == value && TIE_BREAK.compare(other, uuid) < 0)) {
+        better[0]++;
+      }
+    });
+    return better[0] + 1;
+  }
+
+  /**
+   * Streams the current value of every stored player including not yet saved changes
+   */
+  private void forEachValue(StatisticType stat, BiConsumer<UUID, Integer> consumer) {
+    String suffix = "." + stat.getName();
+    lock.readLock().lock();
+    try {
+      for(String string : config.getKeys(false)) {
+        if(string.equals("data-version")) {
+          continue;
+        }
+        try {
+          UUID uuid = UUID.fromString(string);
+          Object pending = dirty.get(string + suffix);
+          consumer.accept(uuid, pending instanceof Integer ? (Integer) pending : config.getInt(string + suffix));
+        } catch(IllegalArgumentException ex) {
+          plugin.getLogger().log(Level.WARNING, "Cannot load the UUID for {0}", string);
+        }
+      }
+      //players which are not yet part of the file
+      dirty.forEach((path, value) -> {
+        if(path.endsWith(suffix) && value instanceof Integer) {
+          String id = path.substring(0, path.length() - suffix.length());
+          if(!config.contains(id)) {
+            try {
+              consumer.accept(UUID.fromString(id), (Integer) value);
+            } catch(IllegalArgumentException ignored) {
+            }
+          }
+        }
+      });
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @NotNull
+  @Override
+  public List<StatsRecord> readRecords(@Nullable UUID after, int limit) {
+    String[] order = recordOrder;
+    if(after == null || order == null) {
+      order = createRecordOrder();
+      recordOrder = order;
+    }
+    int index = 0;
+    if(after != null) {
+      index = Arrays.binarySearch(order, after.toString());
+      index = index < 0 ? -index - 1 : index + 1;
+    }
+    List<StatsRecord> records = new ArrayList<>();
+    for(; index < order.length && records.size() < limit; index++) {
+      String id = order[index];
+      Map<String, Integer> values = new HashMap<>();
+      for(StatisticType statisticType : plugin.getStatsStorage().getStatistics().values()) {
+        String path = id + "." + statisticType.getName();
+        if(statisticType.isPersistent() && contains(path)) {
+          values.put(statisticType.getName(), getInt(path));
+        }
+      }
+      Object name = dirty.get(id + ".playername");
+      if(name == null) {
+        lock.readLock().lock();
+        try {
+          name = config.getString(id + ".playername");
+        } finally {
+          lock.readLock().unlock();
+        }
+      }
+      records.add(new StatsRecord(UUID.fromString(id), name == null ? null : name.toString(), values));
+    }
+    return records;
+  }
+
+  private String[] createRecordOrder() {
+    Set<String> ids = new TreeSet<>();
+    lock.readLock().lock();
+    try {
+      for(String string : config.getKeys(false)) {
+        ids.add(string);
       }
+    } finally {
+      lock.readLock().unlock();
+    }
+    for(String path : dirty.keySet()) {
+      ids.add(path.substring(0, Math.max(0, path.indexOf('.'))));
+    }
+    ids.removeIf(id -> {
       try {
-        stats.put(UUID.fromString(string), config.getInt(string + "." + stat.getName()));
+        return !UUID.fromString(id).toString().equals(id);
       } catch(IllegalArgumentException ex) {
-        plugin.getLogger().log(Level.WARNING, "Cannot load the UUID for {0}", string);
+        return true;
+      }
+    });
+    return ids.toArray(new String[0]);
+  }
+
+  @Override
+  public boolean writeRecords(List<StatsRecord> records) {
+    for(StatsRecord record : records) {
+      String id = record.getUniqueId().toString();
+      record.getValues().forEach((stat, value) -> set(id + "." + stat, value));
+      if(record.getName() != null) {
+        set(id + ".playername", record.getName());
       }
     }
-    return SortUtils.sortByValue(stats);
+    //the whole file gets rewritten, the sharded storage suits a big amount of players better
+    return flush();
   }
 
   @Override
@@ -100,7 +265,13 @@ public class FileStats implements UserDatabase {
     for(Player player : plugin.getServer().getOnlinePlayers()) {
       updateStats(plugin.getUserManager().getUser(player));
     }
-      ConfigUtils.saveConfig(plugin, config, "stats");
+    close();
+  }
+
+  @Override
+  public void close() {
+    saveTask.cancel();
+    flush();
   }
 
   @Override
@@ -110,7 +281,22 @@ public class FileStats implements UserDatabase {
 
   @Override
   public String getPlayerName(UUID uuid) {
-    return config.getString(uuid + ".playername", Bukkit.getOfflinePlayer(uuid).getName());
+    Object name = dirty.get(uuid + ".playername");
+    if(name != null) {
+      return name.toString();
+    }
+    lock.readLock().lock();
+    try {
+      name = config.getString(uuid + ".playername");
+    } finally {
+      lock.readLock().unlock();
+    }
+    return name != null ? name.toString() : Bukkit.getOfflinePlayer(uuid).getName();
+  }
+
+  @Override
+  public void savePlayerName(UUID uuid, String name) {
+    set(uuid + ".playername", name);
   }
 
   private void updateStats(User user) {
@@ -120,12 +306,89 @@ public class FileStats implements UserDatabase {
       if(statisticType.isPersistent()) {
         String path = uuid + "." + statisticType.getName();
         int value = user.getStatistic(statisticType);
-        if(value > 0 || config.contains(path)) {
-          config.set(path, value);
+        if(value > 0 || contains(path)) {
+          set(path, value);
         }
       }
     });
-    config.set(uuid + ".playername", user.getPlayer().getName());
-    ConfigUtils.saveConfig(plugin, config, "stats");
+    Player player = user.getPlayer();
+    if(player != null) {
+      set(uuid + ".playername", player.getName());
+    }
+  }
+
+  private void set(String path, Object value) {
+    dirty.put(path, value);
+    updateRequired.set(true);
+  }
+
+  private int getInt(String path) {
+    Object value = dirty.get(path);
+    if(value instanceof Integer) {
+      return (Integer) value;
+    }
+    lock.readLock().lock();
+    try {
+      return config.getInt(path);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private boolean contains(String path) {
+    if(dirty.containsKey(path)) {
+      return true;
+    }
+    lock.readLock().lock();
+    try {
+      return config.contains(path);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Applies all dirty values to the config and writes it to disk.
+   * Called from the async save task and once on disable.
+   *
+   * @return false if the file could not be written
+   */
+  private synchronized boolean flush() {
+    if(!updateRequired.getAndSet(false)) {
+      return true;
+    }
+    String data;
+    lock.writeLock().lock();
+    try {
+      for(Map.Entry<String, Object> entry : dirty.entrySet()) {
+        config.set(entry.getKey(), entry.getValue());
+        //keep the entry if it got changed again in the meantime
+        dirty.remove(entry.getKey(), entry.getValue());
+      }
+      //downgrade, reads can continue while the config gets serialized
+      lock.readLock().lock();
+    } finally {
+      lock.writeLock().unlock();
+    }
+    try {
+      data = config.saveToString();
+    } finally {
+      lock.readLock().unlock();
+    }
+    File file = new File(plugin.getDataFolder(), "stats.yml");
+    Path temp = new File(plugin.getDataFolder(), "stats.yml.tmp").toPath();
+    try {
+      Files.write(temp, data.getBytes(StandardCharsets.UTF_8));
+      try {
+        Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch(AtomicMoveNotSupportedException exception) {
+        Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch(IOException exception) {
+      updateRequired.set(true);
+      plugin.getLogger().log(Level.WARNING, "Cannot save file stats.yml!", exception);
+      return false;
+    }
+    return true;
   }
 }
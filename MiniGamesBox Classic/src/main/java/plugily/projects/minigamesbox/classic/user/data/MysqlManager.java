@@ -0,0 +1,677 @@
+/*
+ *  MiniGamesBox - Library box with massive content that could be seen as minigames core.
+ *  Copyright (C) 2023 Plugily Projects - maintained by Tigerpanzer_02 and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package plugily.projects.minigamesbox.classic.user.data;
+
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import plugily.projects.minigamesbox.classic.PluginMain;
+import plugily.projects.minigamesbox.classic.api.StatisticType;
+import plugily.projects.minigamesbox.classic.user.User;
+import plugily.projects.minigamesbox.classic.utils.configuration.ConfigUtils;
+import plugily.projects.minigamesbox.database.MysqlDatabase;
+import plugily.projects.minigamesbox.database.PoolSettings;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * MySQL backed user database.
+ * <p>
+ * Statistic writes are not executed directly, they are collected per player and
+ * flushed in multi row upserts from a single writer thread every few ticks.
+ * Loading is done asynchronously and applied back on the main thread.
+ * Rows which can't be written are kept in a journal file and replayed once the database is reachable again.
+ * Users whose statistics could not be loaded are never written or journaled.
+ */
+public class MysqlManager implements UserDatabase {
+
+  protected static final String NAME_COLUMN = "name";
+
+  protected final PluginMain plugin;
+  protected final MysqlDatabase database;
+  protected final String tableName;
+  private final boolean sharedPool;
+  private final int batchSize;
+  //ticks between load attempts of a user, at least the time the circuit stays open
+  private final long loadRetryDelay;
+  protected final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "MiniGamesBox-MySQL-Writer");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private final Map<UUID, Map<String, Object>> pendingWrites = new ConcurrentHashMap<>();
+  //rows stored in the journal which are not written into the database yet, only changed by the writer thread
+  private final Map<UUID, Map<String, Object>> journaled = new ConcurrentHashMap<>();
+  private final WriteJournal journal;
+  //users whose statistics are not loaded yet or failed to load, they are never saved
+  private final Set<User> loading = ConcurrentHashMap.newKeySet();
+  private final BukkitTask flushTask;
+  private final BukkitTask metricsTask;
+
+  public MysqlManager(PluginMain plugin) {
+    this.plugin = plugin;
+    FileConfiguration config = ConfigUtils.getConfig(plugin, "mysql");
+    //plugins sharing a database need a different prefix
+    this.tableName = config.getString("tablePrefix", "") + config.getString("table", "playerstats");
+    this.batchSize = Math.max(1, config.getInt("batchSize", 100));
+    this.journal = new WriteJournal(new File(plugin.getDataFolder(), "mysql-journal.log"));
+    writer.execute(this::recoverJournal);
+    this.sharedPool = config.getBoolean("pool.shared", false);
+    PoolSettings poolSettings = getPoolSettings(config);
+    this.loadRetryDelay = Math.max(100, poolSettings.getCircuitOpenTime() / 50);
+    if(sharedPool) {
+      this.database = SharedPoolRegistry.acquire(plugin, config.getString("user"), config.getString("password"), config.getString("address"), poolSettings);
+    } else {
+      this.database = new MysqlDatabase(config.getString("user"), config.getString("password"), config.getString("address"), poolSettings);
+    }
+    writer.execute(this::createTables);
+    long interval = Math.max(1, config.getLong("writeInterval", 100));
+    this.flushTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, () -> writer.execute(this::flush), interval, interval);
+    long metricsInterval = config.getLong("pool.metricsInterval", 60) * 20;
+    if(metricsInterval > 0) {
+      database.addMetricsListener(statistics -> {
+        plugin.getDebugger().performance("Database", "Connection pool {0}", statistics);
+        if(statistics.getWaitingThreads() > 0) {
+          plugin.getDebugger().debug(Level.WARNING, "{0} threads are waiting for a database connection, consider a bigger pool.maximumPoolSize", statistics.getWaitingThreads());
+        }
+      });
+      this.metricsTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, database::publishMetrics, metricsInterval, metricsInterval);
+    } else {
+      this.metricsTask = null;
+    }
+  }
+
+  private PoolSettings getPoolSettings(FileConfiguration config) {
+    PoolSettings defaults = new PoolSettings();
+    return new PoolSettings()
+      .setMaximumPoolSize(config.getInt("pool.maximumPoolSize", defaults.getMaximumPoolSize()))
+      .setMinimumIdle(config.getInt("pool.minimumIdle", defaults.getMinimumIdle()))
+      .setConnectionTimeout(config.getLong("pool.connectionTimeout", defaults.getConnectionTimeout()))
+      .setIdleTimeout(config.getLong("pool.idleTimeout", defaults.getIdleTimeout()))
+      .setMaxLifetime(config.getLong("maxLifeTime", defaults.getMaxLifetime()))
+      .setKeepaliveTime(config.getLong("pool.keepaliveTime", defaults.getKeepaliveTime()))
+      .setValidationTimeout(config.getLong("pool.validationTimeout", defaults.getValidationTimeout()))
+      .setLeakDetectionThreshold(config.getLong("pool.leakDetectionThreshold", defaults.getLeakDetectionThreshold()))
+      .setFailureThreshold(config.getInt("pool.failureThreshold", defaults.getFailureThreshold()))
+      .setCircuitOpenTime(config.getLong("pool.circuitOpenTime", defaults.getCircuitOpenTime()));
+  }
+
+  /**
+   * Creates the tables if they don't exist, runs on the writer thread before anything else
+   */
+  protected void createTables() {
+    database.executeUpdate("CREATE TABLE IF NOT EXISTS `" + tableName + "` (\n"
+      + "  `UUID` char(36) NOT NULL PRIMARY KEY,\n"
+      + "  `" + NAME_COLUMN + "` varchar(32) NOT NULL DEFAULT ''\n"
+      + ");");
+  }
+
+  @Override
+  public void saveStatistic(User user, StatisticType stat) {
+    if(loading.contains(user)) {
+      return;
+    }
+    queueWrite(user.getUniqueId(), stat.getName(), user.getStatistic(stat));
+  }
+
+  @Override
+  public void saveAllStatistic(User user) {
+    if(loading.contains(user)) {
+      plugin.getDebugger().debug("Skipping save of {0} because the statistics are not loaded", user.getUniqueId());
+      return;
+    }
+    UUID uuid = user.getUniqueId();
+    for(StatisticType statisticType : plugin.getStatsStorage().getStatistics().values()) {
+      if(statisticType.isPersistent()) {
+        queueWrite(uuid, statisticType.getName(), user.getStatistic(statisticType));
+      }
+    }
+    Player player = user.getPlayer();
+    if(player != null) {
+      queueWrite(uuid, NAME_COLUMN, player.getName());
+    }
+  }
+
+  private void queueWrite(UUID uuid, String column, Object value) {
+    pendingWrites.compute(uuid, (key, row) -> {
+      Map<String, Object> columns = row == null ? new TreeMap<>() : row;
+      columns.put(column, value);
+      return columns;
+    });
+  }
+
+  @Override
+  public void loadStatistics(User user) {
+    Player player = user.getPlayer();
+    loading.add(user);
+    loadStatistics(user, player == null ? null : player.getName());
+  }
+
+  private void loadStatistics(User user, @Nullable String playerName) {
+    UUID uuid = user.getUniqueId();
+    Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+      Map<StatisticType, Integer> values = fetchStatistics(uuid);
+      Bukkit.getScheduler().runTask(plugin, () -> {
+        if(values == null) {
+          retryLoad(user, playerName);
+          return;
+        }
+        if(playerName != null) {
+          queueWrite(uuid, NAME_COLUMN, playerName);
+        }
+        values.forEach(user::setStatistic);
+        loading.remove(user);
+      });
+    });
+  }
+
+  /**
+   * The user keeps its zero values after a failed load, saving them would overwrite the stored statistics.
+   * So the user is not saved until a load succeeded, the load is retried while the player is online.
+   * This also keeps players joining while the database is unreachable out of the journal,
+   * their zero values would otherwise be replayed over the stored rows once it is back.
+   */
+  private void retryLoad(User user, @Nullable String playerName) {
+    if(plugin.getUserManager().getUserIfPresent(user.getUniqueId()) != user) {
+      //player left, the statistics of this session are dropped
+      loading.remove(user);
+      return;
+    }
+    plugin.getDebugger().debug(Level.WARNING, "Statistics of {0} could not be loaded, they are not saved until loading them succeeds", user.getUniqueId());
+    Bukkit.getScheduler().runTaskLater(plugin, () -> loadStatistics(user, playerName), loadRetryDelay);
+  }
+
+  @Nullable
+  @Override
+  public Map<StatisticType, Integer> fetchStatistics(UUID uuid) {
+    //taken before the query so a flush in between can't hide a value
+    Map<String, Object> unwritten = getUnwritten(uuid);
+    Map<StatisticType, Integer> values = new HashMap<>();
+    try(Connection connection = connection();
+        PreparedStatement statement = connection.prepareStatement("SELECT * FROM `" + tableName + "` WHERE `UUID`=?")) {
+      statement.setString(1, uuid.toString());
+      try(ResultSet resultSet = statement.executeQuery()) {
+        boolean found = resultSet.next();
+        for(StatisticType statisticType : plugin.getStatsStorage().getStatistics().values()) {
+          if(!statisticType.isPersistent()) {
+            continue;
+          }
+          Object pending = unwritten.get(statisticType.getName());
+          if(pending instanceof Integer) {
+            values.put(statisticType, (Integer) pending);
+          } else if(found) {
+            values.put(statisticType, resultSet.getInt(statisticType.getName()));
+          }
+        }
+      }
+    } catch(SQLException exception) {
+      plugin.getLogger().log(Level.WARNING, "Could not load statistics of " + uuid, exception);
+      return null;
+    }
+    return values;
+  }
+
+  protected Map<String, Object> getUnwritten(UUID uuid) {
+    Map<String, Object> unwritten = new HashMap<>();
+    journaled.computeIfPresent(uuid, (key, row) -> {
+      unwritten.putAll(row);
+      return row;
+    });
+    pendingWrites.computeIfPresent(uuid, (key, row) -> {
+      unwritten.putAll(row);
+      return row;
+    });
+    return unwritten;
+  }
+
+  /**
+   * Writes every queued row into the database, journaled rows are replayed first.
+   * While the journal can't be replayed new rows are journaled as well.
+   */
+  private void flush() {
+    if(!journaled.isEmpty()) {
+      replayJournal();
+    }
+    if(pendingWrites.isEmpty()) {
+      return;
+    }
+    List<Map.Entry<UUID, Map<String, Object>>> rows = new ArrayList<>();
+    Iterator<UUID> iterator = pendingWrites.keySet().iterator();
+    while(iterator.hasNext()) {
+      UUID uuid = iterator.next();
+      Map<String, Object> row = pendingWrites.remove(uuid);
+      if(row != null) {
+        rows.add(Map.entry(uuid, row));
+      }
+    }
+    List<Map.Entry<UUID, Map<String, Object>>> failed = journaled.isEmpty() ? writeRows(rows) : rows;
+    if(!failed.isEmpty()) {
+      addToJournal(failed);
+    }
+  }
+
+  /**
+   * Rows are grouped by their batch key so that each group can be sent as one multi row upsert
+   *
+   * @return the rows which could not be written
+   */
+  private List<Map.Entry<UUID, Map<String, Object>>> writeRows(List<Map.Entry<UUID, Map<String, Object>>> rows) {
+    Map<String, List<Map.Entry<UUID, Map<String, Object>>>> groups = new HashMap<>();
+    for(Map.Entry<UUID, Map<String, Object>> row : rows) {
+      groups.computeIfAbsent(getBatchKey(row.getValue()), key -> new ArrayList<>()).add(row);
+    }
+    List<Map.Entry<UUID, Map<String, Object>>> failed = new ArrayList<>();
+    try(Connection connection = connection()) {
+      for(List<Map.Entry<UUID, Map<String, Object>>> group : groups.values()) {
+        for(int from = 0; from < group.size(); from += batchSize) {
+          List<Map.Entry<UUID, Map<String, Object>>> chunk = group.subList(from, Math.min(group.size(), from + batchSize));
+          try {
+            writeChunk(connection, chunk);
+          } catch(SQLException exception) {
+            plugin.getLogger().log(Level.WARNING, "Failed to write " + chunk.size() + " statistic rows, keeping them in the journal", exception);
+            failed.addAll(chunk);
+          }
+        }
+      }
+    } catch(SQLException exception) {
+      plugin.getDebugger().debug(Level.WARNING, "Database not available, journaling {0} statistic rows: {1}", rows.size(), exception.getMessage());
+      return rows;
+    }
+    return failed;
+  }
+
+  private void addToJournal(List<Map.Entry<UUID, Map<String, Object>>> rows) {
+    try {
+      journal.append(rows);
+    } catch(IOException exception) {
+      plugin.getLogger().log(Level.WARNING, "Could not write the statistics journal, keeping " + rows.size() + " rows in memory", exception);
+      requeue(rows);
+      return;
+    }
+    for(Map.Entry<UUID, Map<String, Object>> entry : rows) {
+      journaled.compute(entry.getKey(), (key, row) -> {
+        Map<String, Object> columns = row == null ? new TreeMap<>() : row;
+        columns.putAll(entry.getValue());
+        return columns;
+      });
+    }
+  }
+
+  /**
+   * Writes all journaled rows in batches, the journal is only cleared if every row was written
+   */
+  private void replayJournal() {
+    List<Map.Entry<UUID, Map<String, Object>>> rows = new ArrayList<>();
+    journaled.forEach((uuid, row) -> rows.add(Map.entry(uuid, new TreeMap<>(row))));
+    if(!writeRows(rows).isEmpty()) {
+      return;
+    }
+    journaled.clear();
+    try {
+      journal.clear();
+    } catch(IOException exception) {
+      plugin.getLogger().log(Level.WARNING, "Could not clear the statistics journal", exception);
+    }
+    plugin.getLogger().log(Level.INFO, "Replayed {0} journaled statistic rows into the database", rows.size());
+  }
+
+  /**
+   * Loads rows of the journal left by a previous run, they are replayed on the next flush
+   */
+  private void recoverJournal() {
+    try {
+      List<Map.Entry<UUID, Map<String, Object>>> rows = journal.read();
+      if(rows.isEmpty()) {
+        return;
+      }
+      //rewrite the journal so a line cut off by a crash doesn't merge with new lines
+      journal.clear();
+      addToJournal(rows);
+      plugin.getLogger().log(Level.INFO, "Recovered {0} statistic rows from the journal", rows.size());
+    } catch(IOException exception) {
+      plugin.getLogger().log(Level.WARNING, "Could not read the statistics journal", exception);
+    }
+  }
+
+  /**
+   * Rows with the same batch key are written together by {@link #writeChunk(Connection, List)}
+   */
+  protected String getBatchKey(Map<String, Object> row) {
+    return String.join(",", row.keySet());
+  }
+
+  /**
+   * Writes rows sharing the same columns with one multi row upsert
+   */
+  protected void writeChunk(Connection connection, List<Map.Entry<UUID, Map<String, Object>>> chunk) throws SQLException {
+    List<String> columns = new ArrayList<>(chunk.get(0).getValue().keySet());
+    StringBuilder query = new StringBuilder("INSERT INTO `").append(tableName).append("` (`UUID`");
+    for(String column : columns) {
+      query.append(", `").append(column).append('`');
+    }
+    query.append(") VALUES ");
+    String row = "(?" + ", ?".repeat(columns.size()) + ")";
+    for(int i = 0; i < chunk.size(); i++) {
+      query.append(i == 0 ? "" : ", ").append(row);
+    }
+    query.append(" ON DUPLICATE KEY UPDATE ");
+    for(int i = 0; i < columns.size(); i++) {
+      String column = columns.get(i);
+      query.append(i == 0 ? "" : ", ").append('`').append(column).append("`=VALUES(`").append(column).append("`)");
+    }
+    try(PreparedStatement statement = connection.prepareStatement(query.toString())) {
+      int index = 1;
+      for(Map.Entry<UUID, Map<String, Object>> entry : chunk) {
+        statement.setString(index++, entry.getKey().toString());
+        for(String column : columns) {
+          statement.setObject(index++, entry.getValue().get(column));
+        }
+      }
+      statement.executeUpdate();
+    }
+  }
+
+  private void requeue(List<Map.Entry<UUID, Map<String, Object>>> rows) {
+    for(Map.Entry<UUID, Map<String, Object>> entry : rows) {
+      //newer values which got queued in the meantime win
+      pendingWrites.merge(entry.getKey(), entry.getValue(), (newer, older) -> {
+        older.putAll(newer);
+        return older;
+      });
+    }
+  }
+
+  @Override
+  public void addColumn(String columnName, String columnProperties) {
+    writer.execute(() -> {
+      try(Connection connection = connection();
+          ResultSet columns = connection.getMetaData().getColumns(connection.getCatalog(), null, tableName, columnName)) {
+        if(columns.next()) {
+          return;
+        }
+        try(Statement statement = connection.createStatement()) {
+          statement.executeUpdate("ALTER TABLE `" + tableName + "` ADD `" + columnName + "` " + columnProperties);
+        }
+      } catch(SQLException exception) {
+        plugin.getDebugger().debug(Level.WARNING, "Could not add column {0}: {1}", columnName, exception.getMessage());
+      }
+    });
+  }
+
+  @Override
+  public void dropColumn(String columnName) {
+    writer.execute(() -> database.executeUpdate("ALTER TABLE `" + tableName + "` DROP COLUMN `" + columnName + "`"));
+  }
+
+  @NotNull
+  @Override
+  public Map<UUID, Integer> getStats(StatisticType stat) {
+    Map<UUID, Integer> stats = new LinkedHashMap<>();
+    try(Connection connection = connection();
+        Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery("SELECT `UUID`, `" + stat.getName() + "` FROM `" + tableName + "` ORDER BY `" + stat.getName() + "` ASC")) {
+      while(resultSet.next()) {
+        try {
+          stats.put(UUID.fromString(resultSet.getString("UUID")), resultSet.getInt(stat.getName()));
+        } catch(IllegalArgumentException ex) {
+          plugin.getLogger().log(Level.WARNING, "Cannot load the UUID for {0}", resultSet.getString("UUID"));
+        }
+      }
+    } catch(SQLException exception) {
+      plugin.getLogger().log(Level.WARNING, "Could not read statistic " + stat.getName(), exception);
+    }
+    return stats;
+  }
+
+  @NotNull
+  @Override
+  public List<Map.Entry<UUID, Integer>> getTopStats(StatisticType stat, int limit, int offset) {
+    List<Map.Entry<UUID, Integer>> top = new ArrayList<>();
+    try(Connection connection = connection();
+        PreparedStatement statement = connection.prepareStatement("SELECT `UUID`, `" + stat.getName() + "` FROM `" + tableName + "` ORDER BY `" + stat.getName() + "` DESC, `UUID` ASC LIMIT ? OFFSET ?")) {
+      statement.setInt(1, limit);
+      statement.setInt(2, offset);
+      try(ResultSet resultSet = statement.executeQuery()) {
+        while(resultSet.next()) {
+          try {
+            top.add(new AbstractMap.SimpleImmutableEntry<>(UUID.fromString(resultSet.getString(1)), resultSet.getInt(2)));
+          } catch(IllegalArgumentException ex) {
+            plugin.getLogger().log(Level.WARNING, "Cannot load the UUID for {0}", resultSet.getString(1));
+          }
+        }
+      }
+    } catch(SQLException exception) {
+      plugin.getLogger().log(Level.WARNING, "Could not read top of statistic " + stat.getName(), exception);
+    }
+    return top;
+  }
+
+  @Override
+  public int getRank(UUID uuid, StatisticType stat) {
+    try(Connection connection = connection();
+        PreparedStatement value = connection.prepareStatement("SELECT `" + stat.getName() + "` FROM `" + tableName + "` WHERE `UUID`=?");
+        PreparedStatement better = connection.prepareStatement("SELECT COUNT(*) FROM `" + tableName + "` WHERE `" + stat.getName() + "` > ? OR (`" + stat.getName() + "` = ? AND `UUID` < ?)")) {
+      value.setString(1, uuid.toString());
+      int playerValue;
+      try(ResultSet resultSet = value.executeQuery()) {
+        if(!resultSet.next()) {
+          return 0;
+        }
+        playerValue = resultSet.getInt(1);
+      }
+      better.setInt(1, playerValue);
+      better.setInt(2, playerValue);
+      better.setString(3, uuid.toString());
+      try(ResultSet resultSet = better.executeQuery()) {
+        return resultSet.next() ? resultSet.getInt(1) + 1 : 0;
+      }
+    } catch(SQLException exception) {
+      plugin.getLogger().log(Level.WARNING, "Could not read rank of " + uuid + " for statistic " + stat.getName(), exception);
+    }
+    return 0;
+  }
+
+  @NotNull
+  @Override
+  public List<StatsRecord> readRecords(@Nullable UUID after, int limit) {
+    List<StatsRecord> records = new ArrayList<>();
+    try(Connection connection = connection();
+        PreparedStatement statement = connection.prepareStatement("SELECT * FROM `" + tableName + "` WHERE `UUID` > ? ORDER BY `UUID` ASC LIMIT ?")) {
+      statement.setString(1, after == null ? "" : after.toString());
+      statement.setInt(2, limit);
+      try(ResultSet resultSet = statement.executeQuery()) {
+        Set<String> columns = new HashSet<>();
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        for(int i = 1; i <= metaData.getColumnCount(); i++) {
+          columns.add(metaData.getColumnLabel(i).toLowerCase());
+        }
+        while(resultSet.next()) {
+          Map<String, Integer> values = new HashMap<>();
+          for(StatisticType statisticType : plugin.getStatsStorage().getStatistics().values()) {
+            if(statisticType.isPersistent() && columns.contains(statisticType.getName().toLowerCase())) {
+              values.put(statisticType.getName(), resultSet.getInt(statisticType.getName()));
+            }
+          }
+          try {
+            records.add(new StatsRecord(UUID.fromString(resultSet.getString("UUID")), resultSet.getString(NAME_COLUMN), values));
+          } catch(IllegalArgumentException ex) {
+            plugin.getLogger().log(Level.WARNING, "Cannot load the UUID for {0}", resultSet.getString("UUID"));
+          }
+        }
+      }
+    } catch(SQLException exception) {
+      throw new IllegalStateException("Could not read players of " + tableName, exception);
+    }
+    return records;
+  }
+
+  @Override
+  public boolean writeRecords(List<StatsRecord> records) {
+    List<Map.Entry<UUID, Map<String, Object>>> rows = new ArrayList<>();
+    for(StatsRecord record : records) {
+      Map<String, Object> row = new TreeMap<>(record.getValues());
+      if(record.getName() != null) {
+        row.put(NAME_COLUMN, record.getName());
+      }
+      rows.add(Map.entry(record.getUniqueId(), row));
+    }
+    try {
+      //on the writer thread so columns which are still being added exist
+      return writer.submit(() -> writeRows(rows).isEmpty()).get();
+    } catch(ExecutionException exception) {
+      plugin.getLogger().log(Level.WARNING, "Could not write " + records.size() + " players", exception);
+    } catch(InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    }
+    return false;
+  }
+
+  @Override
+  public void disable() {
+    for(Player player : plugin.getServer().getOnlinePlayers()) {
+      saveAllStatistic(plugin.getUserManager().getUser(player));
+    }
+    close();
+  }
+
+  @Override
+  public void close() {
+    flushTask.cancel();
+    if(metricsTask != null) {
+      metricsTask.cancel();
+    }
+    writer.execute(this::flush);
+    writer.execute(() -> {
+      try {
+        journal.close();
+      } catch(IOException exception) {
+        plugin.getLogger().log(Level.WARNING, "Could not close the statistics journal", exception);
+      }
+    });
+    writer.shutdown();
+    try {
+      if(!writer.awaitTermination(30, TimeUnit.SECONDS)) {
+        plugin.getLogger().log(Level.WARNING, "Timed out while writing the remaining {0} statistic rows", pendingWrites.size());
+      }
+    } catch(InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    }
+    if(sharedPool) {
+      SharedPoolRegistry.release(plugin, database);
+    } else {
+      database.shutdownConnPool();
+    }
+  }
+
+  @Override
+  public MysqlDatabase getMySQLDatabase() {
+    return database;
+  }
+
+  @Override
+  public String getPlayerName(UUID uuid) {
+    try {
+      String name = database.query("SELECT `" + NAME_COLUMN + "` FROM `" + tableName + "` WHERE `UUID`=?",
+        resultSet -> resultSet.next() ? resultSet.getString(1) : null, uuid.toString());
+      if(name != null) {
+        return name;
+      }
+    } catch(SQLException exception) {
+      plugin.getLogger().log(Level.WARNING, "Could not read player name of " + uuid, exception);
+    }
+    return Bukkit.getOfflinePlayer(uuid).getName();
+  }
+
+  @Override
+  public Map<UUID, String> getPlayerNames(Collection<UUID> uuids) {
+    Map<UUID, String> names = new HashMap<>();
+    if(uuids.isEmpty()) {
+      return names;
+    }
+    try {
+      names.putAll(database.query("SELECT `UUID`, `" + NAME_COLUMN + "` FROM `" + tableName + "` WHERE `UUID` IN ("
+          + String.join(", ", Collections.nCopies(uuids.size(), "?")) + ")", resultSet -> {
+          Map<UUID, String> result = new HashMap<>();
+          while(resultSet.next()) {
+            if(!resultSet.getString(2).isEmpty()) {
+              result.put(UUID.fromString(resultSet.getString(1)), resultSet.getString(2));
+            }
+          }
+          return result;
+        }, uuids.stream().map(UUID::toString).toArray()));
+    } catch(SQLException exception) {
+      plugin.getLogger().log(Level.WARNING, "Could not read player names", exception);
+    }
+    for(UUID uuid : uuids) {
+      if(!names.containsKey(uuid)) {
+        String name = Bukkit.getOfflinePlayer(uuid).getName();
+        if(name != null) {
+          names.put(uuid, name);
+        }
+      }
+    }
+    return names;
+  }
+
+  @Override
+  public void savePlayerName(UUID uuid, String name) {
+    queueWrite(uuid, NAME_COLUMN, name);
+  }
+
+  protected Connection connection() throws SQLException {
+    Connection connection = database.getConnection();
+    if(connection == null) {
+      throw new SQLException("No database connection available");
+    }
+    return connection;
+  }
+
+  public String getTableName() {
+    return tableName;
+  }
+}
@@ -0,0 +1,349 @@
+/*
+ *  MiniGamesBox - Library box with massive content that could be seen as minigames core.
+ *  Copyright (C) 2023 Plugily Projects - maintained by Tigerpanzer_02 and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package plugily.projects.minigamesbox.classic.user.data;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import plugily.projects.minigamesbox.classic.PluginMain;
+import plugily.projects.minigamesbox.classic.api.StatisticType;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Level;
+
+/**
+ * MySQL backed user database with one row per player and statistic.
+ * <p>
+ * Player names stay in the configured table, values are stored in {@code <table>_values}
+ * as {@code (UUID, stat_key, value)}. Registering statistics needs no schema changes and
+ * leaderboards are read from the {@code (stat_key, value)} index.
+ * Statistics of the wide layout are copied over once on the first start.
+ */
+public class NormalizedMysqlManager extends MysqlManager {
+
+  public NormalizedMysqlManager(PluginMain plugin) {
+    super(plugin);
+  }
+
+  private String getValuesTable() {
+    return tableName + "_values";
+  }
+
+  @Override
+  protected void createTables() {
+    super.createTables();
+    try(Connection connection = connection()) {
+      try(Statement statement = connection.createStatement()) {
+        statement.executeUpdate("CREATE TABLE IF NOT EXISTS `" + getValuesTable() + "` (\n"
+          + "  `UUID` char(36) NOT NULL,\n"
+          + "  `stat_key` varchar(64) NOT NULL,\n"
+          + "  `value` int NOT NULL DEFAULT 0,\n"
+          + "  PRIMARY KEY (`UUID`, `stat_key`),\n"
+          + "  INDEX `idx_stat_value` (`stat_key`, `value`, `UUID`)\n"
+          + ");");
+      }
+      migrateWideLayout(connection);
+    } catch(SQLException exception) {
+      plugin.getLogger().log(Level.WARNING, "Could not create statistic table " + getValuesTable(), exception);
+    }
+  }
+
+  /**
+   * Copies the statistic columns of the wide layout into the values table,
+   * only done while the values table is still empty
+   */
+  private void migrateWideLayout(Connection connection) throws SQLException {
+    try(Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery("SELECT 1 FROM `" + getValuesTable() + "` LIMIT 1")) {
+      if(resultSet.next()) {
+        return;
+      }
+    }
+    List<String> columns = new ArrayList<>();
+    try(ResultSet resultSet = connection.getMetaData().getColumns(connection.getCatalog(), null, tableName, null)) {
+      while(resultSet.next()) {
+        String column = resultSet.getString("COLUMN_NAME");
+        if(!column.equalsIgnoreCase("UUID") && !column.equalsIgnoreCase(NAME_COLUMN)) {
+          columns.add(column);
+        }
+      }
+    }
+    if(columns.isEmpty()) {
+      return;
+    }
+    long start = System.currentTimeMillis();
+    connection.setAutoCommit(false);
+    try(Statement statement = connection.createStatement()) {
+      for(String column : columns) {
+        statement.addBatch("INSERT IGNORE INTO `" + getValuesTable() + "` (`UUID`, `stat_key`, `value`) SELECT `UUID`, '" + column + "', `" + column
+          + "` FROM `" + tableName + "` WHERE `" + column + "` IS NOT NULL");
+      }
+      statement.executeBatch();
+      connection.commit();
+    } catch(SQLException exception) {
+      connection.rollback();
+      throw exception;
+    } finally {
+      connection.setAutoCommit(true);
+    }
+    plugin.getLogger().log(Level.INFO, "Migrated {0} statistic columns of {1} into {2} in {3}ms, the old columns are not used anymore",
+      new Object[]{columns.size(), tableName, getValuesTable(), System.currentTimeMillis() - start});
+  }
+
+  @Override
+  protected String getBatchKey(Map<String, Object> row) {
+    //rows are split into names and values anyway
+    return "";
+  }
+
+  @Override
+  protected void writeChunk(Connection connection, List<Map.Entry<UUID, Map<String, Object>>> chunk) throws SQLException {
+    List<Object[]> names = new ArrayList<>();
+    List<Object[]> values = new ArrayList<>();
+    for(Map.Entry<UUID, Map<String, Object>> entry : chunk) {
+      String uuid = entry.getKey().toString();
+      entry.getValue().forEach((column, value) -> {
+        if(NAME_COLUMN.equals(column)) {
+          names.add(new Object[]{uuid, value});
+        } else {
+          values.add(new Object[]{uuid, column, value});
+        }
+      });
+    }
+    upsert(connection, "INSERT INTO `" + tableName + "` (`UUID`, `" + NAME_COLUMN + "`) VALUES ", "(?, ?)",
+      " ON DUPLICATE KEY UPDATE `" + NAME_COLUMN + "`=VALUES(`" + NAME_COLUMN + "`)", names);
+    upsert(connection, "INSERT INTO `" + getValuesTable() + "` (`UUID`, `stat_key`, `value`) VALUES ", "(?, ?, ?)",
+      " ON DUPLICATE KEY UPDATE `value`=VALUES(`value`)", values);
+  }
+
+  private void upsert(Connection connection, String insert, String row, String update, List<Object[]> rows) throws SQLException {
+    if(rows.isEmpty()) {
+      return;
+    }
+    StringBuilder query = new StringBuilder(insert);
+    for(int i = 0; i < rows.size(); i++) {
+      query.append(i == 0 ? "" : ", ").append(row);
+    }
+    query.append(update);
+    try(PreparedStatement statement = connection.prepareStatement(query.toString())) {
+      int index = 1;
+      for(Object[] parameters : rows) {
+        for(Object parameter : parameters) {
+          statement.setObject(index++, parameter);
+        }
+      }
+      statement.executeUpdate();
+    }
+  }
+
+  @Nullable
+  @Override
+  public Map<StatisticType, Integer> fetchStatistics(UUID uuid) {
+    //taken before the query so a flush in between can't hide a value
+    Map<String, Object> unwritten = getUnwritten(uuid);
+    Map<String, Integer> stored = new HashMap<>();
+    try(Connection connection = connection();
+        PreparedStatement statement = connection.prepareStatement("SELECT `stat_key`, `value` FROM `" + getValuesTable() + "` WHERE `UUID`=?")) {
+      statement.setString(1, uuid.toString());
+      try(ResultSet resultSet = statement.executeQuery()) {
+        while(resultSet.next()) {
+          stored.put(resultSet.getString(1), resultSet.getInt(2));
+        }
+      }
+    } catch(SQLException exception) {
+      plugin.getLogger().log(Level.WARNING, "Could not load statistics of " + uuid, exception);
+      return null;
+    }
+    Map<StatisticType, Integer> values = new HashMap<>();
+    for(StatisticType statisticType : plugin.getStatsStorage().getStatistics().values()) {
+      if(!statisticType.isPersistent()) {
+        continue;
+      }
+      Object pending = unwritten.get(statisticType.getName());
+      if(pending instanceof Integer) {
+        values.put(statisticType, (Integer) pending);
+      } else if(stored.containsKey(statisticType.getName())) {
+        values.put(statisticType, stored.get(statisticType.getName()));
+      }
+    }
+    return values;
+  }
+
+  @NotNull
+  @Override
+  public List<StatsRecord> readRecords(@Nullable UUID after, int limit) {
+    List<String> players = new ArrayList<>();
+    Map<String, String> names = new HashMap<>();
+    Map<String, Map<String, Integer>> stored = new HashMap<>();
+    try(Connection connection = connection()) {
+      try(PreparedStatement statement = connection.prepareStatement("SELECT DISTINCT `UUID` FROM `" + getValuesTable() + "` WHERE `UUID` > ? ORDER BY `UUID` ASC LIMIT ?")) {
+        statement.setString(1, after == null ? "" : after.toString());
+        statement.setInt(2, limit);
+        try(ResultSet resultSet = statement.executeQuery()) {
+          while(resultSet.next()) {
+            players.add(resultSet.getString(1));
+          }
+        }
+      }
+      if(players.isEmpty()) {
+        return new ArrayList<>();
+      }
+      //both queries read the same UUID range through the primary keys
+      String first = players.get(0);
+      String last = players.get(players.size() - 1);
+      try(PreparedStatement statement = connection.prepareStatement("SELECT `UUID`, `stat_key`, `value` FROM `" + getValuesTable() + "` WHERE `UUID` BETWEEN ? AND ?")) {
+        statement.setString(1, first);
+        statement.setString(2, last);
+        try(ResultSet resultSet = statement.executeQuery()) {
+          while(resultSet.next()) {
+            stored.computeIfAbsent(resultSet.getString(1), key -> new HashMap<>()).put(resultSet.getString(2), resultSet.getInt(3));
+          }
+        }
+      }
+      try(PreparedStatement statement = connection.prepareStatement("SELECT `UUID`, `" + NAME_COLUMN + "` FROM `" + tableName + "` WHERE `UUID` BETWEEN ? AND ?")) {
+        statement.setString(1, first);
+        statement.setString(2, last);
+        try(ResultSet resultSet = statement.executeQuery()) {
+          while(resultSet.next()) {
+            names.put(resultSet.getString(1), resultSet.getString(2));
+          }
+        }
+      }
+    } catch(SQLException exception) {
+      throw new IllegalStateException("Could not read players of " + getValuesTable(), exception);
+    }
+    List<StatsRecord> records = new ArrayList<>();
+    for(String player : players) {
+      Map<String, Integer> values = new HashMap<>();
+      Map<String, Integer> playerValues = stored.getOrDefault(player, new HashMap<>());
+      for(StatisticType statisticType : plugin.getStatsStorage().getStatistics().values()) {
+        Integer value = playerValues.get(statisticType.getName());
+        if(statisticType.isPersistent() && value != null) {
+          values.put(statisticType.getName(), value);
+        }
+      }
+      try {
+        records.add(new StatsRecord(UUID.fromString(player), names.get(player), values));
+      } catch(IllegalArgumentException ex) {
+        plugin.getLogger().log(Level.WARNING, "Cannot load the UUID for {0}", player);
+      }
+    }
+    return records;
+  }
+
+  @Override
+  public void addColumn(String columnName, String columnProperties) {
+    //statistics are rows, nothing to change
+  }
+
+  @Override
+  public void dropColumn(String columnName) {
+    writer.execute(() -> {
+      try {
+        database.update("DELETE FROM `" + getValuesTable() + "` WHERE `stat_key`=?", columnName);
+      } catch(SQLException exception) {
+        plugin.getLogger().log(Level.WARNING, "Could not delete statistic " + columnName, exception);
+      }
+    });
+  }
+
+  @NotNull
+  @Override
+  public Map<UUID, Integer> getStats(StatisticType stat) {
+    Map<UUID, Integer> stats = new LinkedHashMap<>();
+    try(Connection connection = connection();
+        PreparedStatement statement = connection.prepareStatement("SELECT `UUID`, `value` FROM `" + getValuesTable() + "` WHERE `stat_key`=? ORDER BY `value` ASC")) {
+      statement.setString(1, stat.getName());
+      try(ResultSet resultSet = statement.executeQuery()) {
+        while(resultSet.next()) {
+          try {
+            stats.put(UUID.fromString(resultSet.getString(1)), resultSet.getInt(2));
+          } catch(IllegalArgumentException ex) {
+            plugin.getLogger().log(Level.WARNING, "Cannot load the UUID for {0}", resultSet.getString(1));
+          }
+        }
+      }
+    } catch(SQLException exception) {
+      plugin.getLogger().log(Level.WARNING, "Could not read statistic " + stat.getName(), exception);
+    }
+    return stats;
+  }
+
+  @NotNull
+  @Override
+  public List<Map.Entry<UUID, Integer>> getTopStats(StatisticType stat, int limit, int offset) {
+    List<Map.Entry<UUID, Integer>> top = new ArrayList<>();
+    try(Connection connection = connection();
+        PreparedStatement statement = connection.prepareStatement("SELECT `UUID`, `value` FROM `" + getValuesTable() + "` WHERE `stat_key`=? ORDER BY `value` DESC, `UUID` ASC LIMIT ? OFFSET ?")) {
+      statement.setString(1, stat.getName());
+      statement.setInt(2, limit);
+      statement.setInt(3, offset);
+      try(ResultSet resultSet = statement.executeQuery()) {
+        while(resultSet.next()) {
+          try {
+            top.add(new AbstractMap.SimpleImmutableEntry<>(UUID.fromString(resultSet.getString(1)), resultSet.getInt(2)));
+          } catch(IllegalArgumentException ex) {
+            plugin.getLogger().log(Level.WARNING, "Cannot load the UUID for {0}", resultSet.getString(1));
+          }
+        }
+      }
+    } catch(SQLException exception) {
+      plugin.getLogger().log(Level.WARNING, "Could not read top of statistic " + stat.getName(), exception);
+    }
+    return top;
+  }
+
+  @Override
+  public int getRank(UUID uuid, StatisticType stat) {
+    try(Connection connection = connection();
+        PreparedStatement value = connection.prepareStatement("SELECT `value` FROM `" + getValuesTable() + "` WHERE `UUID`=? AND `stat_key`=?");
+        PreparedStatement better = connection.prepareStatement("SELECT COUNT(*) FROM `" + getValuesTable() + "` WHERE `stat_key`=? AND (`value` > ? OR (`value` = ? AND `UUID` < ?))")) {
+      value.setString(1, uuid.toString());
+      value.setString(2, stat.getName());
+      int playerValue;
+      try(ResultSet resultSet = value.executeQuery()) {
+        if(!resultSet.next()) {
+          return 0;
+        }
+        playerValue = resultSet.getInt(1);
+      }
+      better.setString(1, stat.getName());
+      better.setInt(2, playerValue);
+      better.setInt(3, playerValue);
+      better.setString(4, uuid.toString());
+      try(ResultSet resultSet = better.executeQuery()) {
+        return resultSet.next() ? resultSet.getInt(1) + 1 : 0;
+      }
+    } catch(SQLException exception) {
+      plugin.getLogger().log(Level.WARNING, "Could not read rank of " + uuid + " for statistic " + stat.getName(), exception);
+    }
+    return 0;
+  }
+
+}
@@ -0,0 +1,498 @@
+/*
+ *  MiniGamesBox - Library box with massive content that could be seen as minigames core.
+ *  Copyright (C) 2023 Plugily Projects - maintained by Tigerpanzer_02 and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package plugily.projects.minigamesbox.classic.user.data;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import plugily.projects.minigamesbox.classic.PluginMain;
+import plugily.projects.minigamesbox.classic.api.StatisticType;
+import plugily.projects.minigamesbox.classic.user.User;
+import plugily.projects.minigamesbox.database.MysqlDatabase;
+import plugily.projects.minigamesbox.sorter.SortUtils;
+import plugily.projects.minigamesbox.sorter.TopCollector;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+
+/**
+ * Flat file user database which splits the players into segment files by the first
+ * two characters of their UUID (256 shards).
+ * <p>
+ * Every change is appended to a journal, a compactor folds the journal into the segments
+ * in the background. Values which are not yet compacted are kept in memory so loading a
+ * player only needs its own segment.
+ * <p>
+ * Line format of journal and segments: {@code uuid<TAB>key=value<TAB>key=value...}
+ */
+public class ShardedFileStats implements UserDatabase {
+
+  private static final String NAME_KEY = "playername";
+
+  private final PluginMain plugin;
+  private final File segmentsFolder;
+  private final File journalFile;
+  private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "MiniGamesBox-Stats-Writer");
+    thread.setDaemon(true);
+    return thread;
+  });
+  //values not yet folded into the segments, readable from any thread
+  private final Map<UUID, Map<String, String>> pending = new ConcurrentHashMap<>();
+  //values which are inside the journal, only accessed by the writer thread
+  private final Map<UUID, Map<String, String>> uncompacted = new HashMap<>();
+  private BufferedWriter journal;
+  private final BukkitTask compactTask;
+
+  public ShardedFileStats(PluginMain plugin) {
+    this.plugin = plugin;
+    File folder = new File(plugin.getDataFolder(), "stats");
+    this.segmentsFolder = new File(folder, "segments");
+    this.journalFile = new File(folder, "journal.log");
+    segmentsFolder.mkdirs();
+    writer.execute(this::recover);
+    long interval = Math.max(1, plugin.getConfig().getLong("Stats.Compact-Interval", 300)) * 20;
+    this.compactTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, () -> writer.execute(this::compact), interval, interval);
+  }
+
+  @Override
+  public void saveStatistic(User user, StatisticType stat) {
+    Map<String, String> values = new HashMap<>();
+    values.put(stat.getName(), Integer.toString(user.getStatistic(stat)));
+    write(user.getUniqueId(), values);
+  }
+
+  @Override
+  public void saveAllStatistic(User user) {
+    Map<String, String> values = new HashMap<>();
+    for(StatisticType statisticType : plugin.getStatsStorage().getStatistics().values()) {
+      if(statisticType.isPersistent()) {
+        values.put(statisticType.getName(), Integer.toString(user.getStatistic(statisticType)));
+      }
+    }
+    Player player = user.getPlayer();
+    if(player != null) {
+      values.put(NAME_KEY, player.getName());
+    }
+    write(user.getUniqueId(), values);
+  }
+
+  @Override
+  public void savePlayerName(UUID uuid, String name) {
+    Map<String, String> values = new HashMap<>();
+    values.put(NAME_KEY, name);
+    write(uuid, values);
+  }
+
+  private void write(UUID uuid, Map<String, String> values) {
+    pending.computeIfAbsent(uuid, key -> new ConcurrentHashMap<>()).putAll(values);
+    writer.execute(() -> append(uuid, values));
+  }
+
+  @Override
+  public void loadStatistics(User user) {
+    fetchStatistics(user.getUniqueId()).forEach(user::setStatistic);
+  }
+
+  @NotNull
+  @Override
+  public Map<StatisticType, Integer> fetchStatistics(UUID uuid) {
+    Map<String, String> record = readRecord(uuid);
+    Map<StatisticType, Integer> values = new HashMap<>();
+    plugin.getStatsStorage().getStatistics().forEach((s, statisticType) -> values.put(statisticType, parseInt(record.get(statisticType.getName()))));
+    return values;
+  }
+
+  @Override
+  public void addColumn(String columnName, String columnProperties) {
+    //skip
+  }
+
+  @Override
+  public void dropColumn(String columnName) {
+    //skip
+  }
+
+  @NotNull
+  @Override
+  public Map<UUID, Integer> getStats(StatisticType stat) {
+    Map<UUID, Integer> stats = new TreeMap<>();
+    forEachValue(stat, stats::put);
+    return SortUtils.sortByValue(stats);
+  }
+
+  @NotNull
+  @Override
+  public List<Map.Entry<UUID, Integer>> getTopStats(StatisticType stat, int limit, int offset) {
+    TopCollector<UUID> collector = new TopCollector<>(limit, offset, TIE_BREAK);
+    forEachValue(stat, collector::offer);
+    return collector.getResult();
+  }
+
+  @Override
+  public int getRank(UUID uuid, StatisticType stat) {
+    String stored = readRecord(uuid).get(stat.getName());
+    if(stored == null) {
+      return 0;
+    }
+    int value = parseInt(stored);
+    int[] better = {0};
+    forEachValue(stat, (other, otherValue) -> {
+      if(otherValue > value || (otherValue == value && TIE_BREAK.compare(other, uuid) < 0)) {
+        better[0]++;
+      }
+    });
+    return better[0] + 1;
+  }
+
+  /**
+   * Streams the current value of every stored player segment by segment, not yet compacted values win
+   */
+  private void forEachValue(StatisticType stat, BiConsumer<UUID, Integer> consumer) {
+    Set<UUID> overridden = new HashSet<>();
+    File[] segments = segmentsFolder.listFiles((dir, name) -> name.endsWith(".dat"));
+    if(segments != null) {
+      for(File segment : segments) {
+        readSegment(segment).forEach((uuid, values) -> {
+          Map<String, String> uncommitted = pending.get(uuid);
+          String value = uncommitted == null ? null : uncommitted.get(stat.getName());
+          if(value != null) {
+            overridden.add(uuid);
+          } else {
+            value = values.get(stat.getName());
+          }
+          consumer.accept(uuid, parseInt(value));
+        });
+      }
+    }
+    pending.forEach((uuid, values) -> {
+      String value = values.get(stat.getName());
+      if(value != null && !overridden.contains(uuid)) {
+        consumer.accept(uuid, parseInt(value));
+      }
+    });
+  }
+
+  @NotNull
+  @Override
+  public List<StatsRecord> readRecords(@Nullable UUID after, int limit) {
+    List<StatsRecord> records = new ArrayList<>();
+    String from = after == null ? "" : after.toString();
+    String[] segments = segmentsFolder.list((dir, name) -> name.endsWith(".dat"));
+    Set<String> shards = new TreeSet<>();
+    if(segments != null) {
+      for(String segment : segments) {
+        shards.add(segment.substring(0, segment.length() - 4));
+      }
+    }
+    //players which are not yet compacted into their segment
+    pending.keySet().forEach(uuid -> shards.add(uuid.toString().substring(0, 2)));
+    //segments hold the players of one UUID prefix, so walking them in order streams the players in order
+    for(String shard : shards) {
+      if(records.size() >= limit) {
+        break;
+      }
+      if(!from.isEmpty() && shard.compareTo(from.substring(0, 2)) < 0) {
+        continue;
+      }
+      Map<String, Map<String, String>> players = new TreeMap<>();
+      readSegment(new File(segmentsFolder, shard + ".dat")).forEach((uuid, values) -> players.put(uuid.toString(), values));
+      pending.forEach((uuid, values) -> {
+        if(uuid.toString().startsWith(shard)) {
+          players.computeIfAbsent(uuid.toString(), key -> new HashMap<>()).putAll(values);
+        }
+      });
+      for(Map.Entry<String, Map<String, String>> player : players.entrySet()) {
+        if(records.size() >= limit) {
+          break;
+        }
+        if(player.getKey().compareTo(from) <= 0) {
+          continue;
+        }
+        Map<String, Integer> values = new HashMap<>();
+        for(StatisticType statisticType : plugin.getStatsStorage().getStatistics().values()) {
+          String value = player.getValue().get(statisticType.getName());
+          if(statisticType.isPersistent() && value != null) {
+            values.put(statisticType.getName(), parseInt(value));
+          }
+        }
+        records.add(new StatsRecord(UUID.fromString(player.getKey()), player.getValue().get(NAME_KEY), values));
+      }
+    }
+    return records;
+  }
+
+  @Override
+  public boolean writeRecords(List<StatsRecord> records) {
+    for(StatsRecord record : records) {
+      Map<String, String> values = new HashMap<>();
+      record.getValues().forEach((stat, value) -> values.put(stat, Integer.toString(value)));
+      if(record.getName() != null) {
+        values.put(NAME_KEY, record.getName());
+      }
+      write(record.getUniqueId(), values);
+    }
+    try {
+      //records come ordered by UUID, so compacting only rewrites a few segments
+      return writer.submit(() -> {
+        compact();
+        return uncompacted.isEmpty();
+      }).get();
+    } catch(ExecutionException exception) {
+      plugin.getLogger().log(Level.WARNING, "Could not write " + records.size() + " players", exception);
+    } catch(InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    }
+    return false;
+  }
+
+  @Override
+  public void disable() {
+    for(Player player : plugin.getServer().getOnlinePlayers()) {
+      saveAllStatistic(plugin.getUserManager().getUser(player));
+    }
+    close();
+  }
+
+  @Override
+  public void close() {
+    compactTask.cancel();
+    writer.execute(this::compact);
+    writer.shutdown();
+    try {
+      if(!writer.awaitTermination(30, TimeUnit.SECONDS)) {
+        plugin.getLogger().log(Level.WARNING, "Timed out while compacting stats, the journal will be replayed on next start");
+      }
+    } catch(InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public MysqlDatabase getMySQLDatabase() {
+    return null;
+  }
+
+  @Override
+  public String getPlayerName(UUID uuid) {
+    String name = readRecord(uuid).get(NAME_KEY);
+    return name != null ? name : Bukkit.getOfflinePlayer(uuid).getName();
+  }
+
+  private Map<String, String> readRecord(UUID uuid) {
+    Map<String, String> values = new HashMap<>();
+    String prefix = uuid + "\t";
+    File segment = getSegment(uuid);
+    if(segment.exists()) {
+      try(BufferedReader reader = Files.newBufferedReader(segment.toPath(), StandardCharsets.UTF_8)) {
+        String line;
+        while((line = reader.readLine()) != null) {
+          if(line.startsWith(prefix)) {
+            parseValues(line, values);
+            break;
+          }
+        }
+      } catch(IOException exception) {
+        plugin.getLogger().log(Level.WARNING, "Cannot read stats segment " + segment.getName(), exception);
+      }
+    }
+    Map<String, String> uncommitted = pending.get(uuid);
+    if(uncommitted != null) {
+      values.putAll(uncommitted);
+    }
+    return values;
+  }
+
+  private Map<UUID, Map<String, String>> readSegment(File segment) {
+    Map<UUID, Map<String, String>> records = new LinkedHashMap<>();
+    if(!segment.exists()) {
+      return records;
+    }
+    try(BufferedReader reader = Files.newBufferedReader(segment.toPath(), StandardCharsets.UTF_8)) {
+      String line;
+      while((line = reader.readLine()) != null) {
+        readLine(line, records);
+      }
+    } catch(IOException exception) {
+      plugin.getLogger().log(Level.WARNING, "Cannot read stats segment " + segment.getName(), exception);
+    }
+    return records;
+  }
+
+  private void readLine(String line, Map<UUID, Map<String, String>> records) {
+    int separator = line.indexOf('\t');
+    if(separator <= 0) {
+      return;
+    }
+    try {
+      UUID uuid = UUID.fromString(line.substring(0, separator));
+      parseValues(line, records.computeIfAbsent(uuid, key -> new HashMap<>()));
+    } catch(IllegalArgumentException ex) {
+      plugin.getLogger().log(Level.WARNING, "Cannot load the UUID for {0}", line.substring(0, separator));
+    }
+  }
+
+  private void parseValues(String line, Map<String, String> values) {
+    String[] parts = line.split("\t");
+    for(int i = 1; i < parts.length; i++) {
+      int equals = parts[i].indexOf('=');
+      if(equals > 0) {
+        values.put(parts[i].substring(0, equals), parts[i].substring(equals + 1));
+      }
+    }
+  }
+
+  private String formatLine(UUID uuid, Map<String, String> values) {
+    StringBuilder line = new StringBuilder(uuid.toString());
+    values.forEach((key, value) -> line.append('\t').append(key).append('=').append(value));
+    return line.toString();
+  }
+
+  private int parseInt(String value) {
+    if(value == null) {
+      return 0;
+    }
+    try {
+      return Integer.parseInt(value);
+    } catch(NumberFormatException exception) {
+      return 0;
+    }
+  }
+
+  private File getSegment(UUID uuid) {
+    return new File(segmentsFolder, uuid.toString().substring(0, 2) + ".dat");
+  }
+
+  /**
+   * Replays a journal left over by a crash, called once on the writer thread.
+   */
+  private void recover() {
+    if(!journalFile.exists()) {
+      return;
+    }
+    Map<UUID, Map<String, String>> records = new HashMap<>();
+    try(BufferedReader reader = Files.newBufferedReader(journalFile.toPath(), StandardCharsets.UTF_8)) {
+      String line;
+      while((line = reader.readLine()) != null) {
+        readLine(line, records);
+      }
+    } catch(IOException exception) {
+      plugin.getLogger().log(Level.WARNING, "Cannot replay stats journal", exception);
+    }
+    records.forEach((uuid, values) -> {
+      uncompacted.computeIfAbsent(uuid, key -> new HashMap<>()).putAll(values);
+      pending.computeIfAbsent(uuid, key -> new ConcurrentHashMap<>()).putAll(values);
+    });
+    plugin.getLogger().log(Level.INFO, "Replayed stats journal with {0} players", records.size());
+    compact();
+  }
+
+  private void append(UUID uuid, Map<String, String> values) {
+    try {
+      if(journal == null) {
+        journal = Files.newBufferedWriter(journalFile.toPath(), StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+      }
+      journal.write(formatLine(uuid, values));
+      journal.newLine();
+      journal.flush();
+      uncompacted.computeIfAbsent(uuid, key -> new HashMap<>()).putAll(values);
+    } catch(IOException exception) {
+      plugin.getLogger().log(Level.WARNING, "Cannot append to stats journal", exception);
+    }
+  }
+
+  /**
+   * Folds the journal into the affected segments and truncates it afterwards.
+   * Only runs on the writer thread.
+   */
+  private void compact() {
+    if(uncompacted.isEmpty()) {
+      return;
+    }
+    long start = System.currentTimeMillis();
+    Map<String, List<UUID>> shards = new HashMap<>();
+    for(UUID uuid : uncompacted.keySet()) {
+      shards.computeIfAbsent(uuid.toString().substring(0, 2), key -> new ArrayList<>()).add(uuid);
+    }
+    for(List<UUID> players : shards.values()) {
+      File segment = getSegment(players.get(0));
+      Map<UUID, Map<String, String>> records = readSegment(segment);
+      for(UUID uuid : players) {
+        records.computeIfAbsent(uuid, key -> new HashMap<>()).putAll(uncompacted.get(uuid));
+      }
+      StringBuilder data = new StringBuilder();
+      records.forEach((uuid, values) -> data.append(formatLine(uuid, values)).append('\n'));
+      try {
+        Path temp = new File(segmentsFolder, segment.getName() + ".tmp").toPath();
+        Files.write(temp, data.toString().getBytes(StandardCharsets.UTF_8));
+        try {
+          Files.move(temp, segment.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch(AtomicMoveNotSupportedException exception) {
+          Files.move(temp, segment.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+      } catch(IOException exception) {
+        //journal stays intact and gets replayed on the next compaction
+        plugin.getLogger().log(Level.WARNING, "Cannot write stats segment " + segment.getName(), exception);
+        return;
+      }
+    }
+    try {
+      if(journal != null) {
+        journal.close();
+        journal = null;
+      }
+      Files.deleteIfExists(journalFile.toPath());
+    } catch(IOException exception) {
+      plugin.getLogger().log(Level.WARNING, "Cannot truncate stats journal", exception);
+    }
+    uncompacted.forEach((uuid, values) -> pending.computeIfPresent(uuid, (key, current) -> {
+      values.forEach(current::remove);
+      return current.isEmpty() ? null : current;
+    }));
+    plugin.getDebugger().debug("Compacted stats of {0} players into {1} segments took {2}ms", uncompacted.size(), shards.size(), System.currentTimeMillis() - start);
+    uncompacted.clear();
+  }
+}
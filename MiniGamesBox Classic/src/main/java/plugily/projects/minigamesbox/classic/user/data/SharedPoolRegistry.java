@@ -0,0 +1,146 @@
+/*
+ *  MiniGamesBox - Library box with massive content that could be seen as minigames core.
+ *  Copyright (C) 2023 Plugily Projects - maintained by Tigerpanzer_02 and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package plugily.projects.minigamesbox.classic.user.data;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.RegisteredServiceProvider;
+import org.bukkit.plugin.ServicePriority;
+import org.bukkit.plugin.ServicesManager;
+import plugily.projects.minigamesbox.classic.PluginMain;
+import plugily.projects.minigamesbox.database.MysqlDatabase;
+import plugily.projects.minigamesbox.database.PoolSettings;
+import plugily.projects.minigamesbox.database.SharedDataSource;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
+/**
+ * Shares one MySQL connection pool per jdbc url and user between all MiniGamesBox plugins.
+ * <p>
+ * Every plugin using a pool registers its own {@link SharedDataSource} handle as {@link DataSource}
+ * service, the registrations with the same key are the reference count of the pool.
+ * The pool is created by the first plugin and closed once the last plugin released it.
+ * The classes of the pool are unloaded with the plugin which created it, so a plugin releasing its pool
+ * while others still use it hands the pool over to one of them, that plugin creates a new pool with its settings.
+ */
+public class SharedPoolRegistry {
+
+  private SharedPoolRegistry() {
+  }
+
+  /**
+   * Get a database using the shared pool of the jdbc url and user, the pool is created if no plugin registered it yet.
+   * The pool settings of the first plugin are used for the pool.
+   *
+   * @param plugin   the plugin using the pool
+   * @param user     the user of the database
+   * @param password the password, only used if the pool is created or handed over to this plugin
+   * @param jdbcUrl  the jdbc url of the database
+   * @param settings the pool settings
+   * @return database using the shared pool, release it with {@link #release(PluginMain, MysqlDatabase)}
+   */
+  public static MysqlDatabase acquire(PluginMain plugin, String user, String password, String jdbcUrl, PoolSettings settings) {
+    String key = SharedDataSource.createKey(jdbcUrl, user);
+    ServicesManager services = Bukkit.getServicesManager();
+    SharedDataSource handle = null;
+    for(RegisteredServiceProvider<DataSource> registration : services.getRegistrations(DataSource.class)) {
+      if(isPool(registration.getProvider(), key)) {
+        try {
+          //handles of other borrowing plugins unwrap to the handle of the owner
+          handle = new SharedDataSource(registration.getProvider().unwrap(DataSource.class), () -> new MysqlDatabase(user, password, jdbcUrl, settings));
+        } catch(SQLException exception) {
+          continue;
+        }
+        plugin.getLogger().log(Level.INFO, "Using the MySQL connection pool of {0}", registration.getPlugin().getName());
+        break;
+      }
+    }
+    if(handle == null) {
+      handle = new SharedDataSource(jdbcUrl, user, new MysqlDatabase(user, password, jdbcUrl, settings));
+    }
+    services.register(DataSource.class, handle, plugin, ServicePriority.Normal);
+    return new MysqlDatabase(handle, settings);
+  }
+
+  /**
+   * Stops the database of the plugin, the shared pool is closed if no other plugin uses it.
+   * If the plugin created the pool and other plugins still use it, the pool is handed over to one of them
+   *
+   * @param plugin   the plugin using the pool
+   * @param database the database returned by {@link #acquire(PluginMain, String, String, String, PoolSettings)}
+   */
+  public static void release(PluginMain plugin, MysqlDatabase database) {
+    //only stops the asynchronous query threads of this plugin
+    database.shutdownConnPool();
+    if(!(database.getDataSource() instanceof SharedDataSource)) {
+      return;
+    }
+    SharedDataSource handle = (SharedDataSource) database.getDataSource();
+    ServicesManager services = Bukkit.getServicesManager();
+    services.unregister(DataSource.class, handle);
+    List<RegisteredServiceProvider<DataSource>> remaining = new ArrayList<>();
+    for(RegisteredServiceProvider<DataSource> registration : services.getRegistrations(DataSource.class)) {
+      if(isPool(registration.getProvider(), handle.get())) {
+        remaining.add(registration);
+      }
+    }
+    if(!remaining.isEmpty() && !handle.isOwner()) {
+      plugin.getDebugger().debug("MySQL connection pool is still used by {0}", remaining.get(0).getPlugin().getName());
+      return;
+    }
+    if(!remaining.isEmpty()) {
+      handOver(plugin, remaining);
+    }
+    try {
+      handle.close();
+    } catch(IOException exception) {
+      plugin.getLogger().log(Level.WARNING, "Could not close the shared MySQL connection pool", exception);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void handOver(PluginMain plugin, List<RegisteredServiceProvider<DataSource>> remaining) {
+    DataSource newOwner = null;
+    for(RegisteredServiceProvider<DataSource> registration : remaining) {
+      DataSource provider = registration.getProvider();
+      if(newOwner != null) {
+        ((Consumer<DataSource>) provider).accept(newOwner);
+        continue;
+      }
+      try {
+        ((Runnable) provider).run();
+        newOwner = provider;
+        plugin.getLogger().log(Level.INFO, "Handed the MySQL connection pool over to {0}", registration.getPlugin().getName());
+      } catch(RuntimeException exception) {
+        plugin.getLogger().log(Level.WARNING, "Could not hand the MySQL connection pool over to " + registration.getPlugin().getName(), exception);
+      }
+    }
+  }
+
+  private static boolean isPool(Object provider, String key) {
+    return SharedDataSource.isSharedPool(provider) && key.equals(((Supplier<?>) provider).get());
+  }
+
+}
@@ -0,0 +1,542 @@
+/*
+ *  MiniGamesBox - Library box with massive content that could be seen as minigames core.
+ *  Copyright (C) 2023 Plugily Projects - maintained by Tigerpanzer_02 and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package plugily.projects.minigamesbox.classic.user.data;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import plugily.projects.minigamesbox.classic.PluginMain;
+import plugily.projects.minigamesbox.classic.api.StatisticType;
+import plugily.projects.minigamesbox.classic.user.User;
+import plugily.projects.minigamesbox.database.MysqlDatabase;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Embedded SQLite user database (stats.db), no database server required.
+ * <p>
+ * Runs in WAL mode so reads are never blocked by the writer. All writes are queued
+ * and executed as prepared statement batches inside one transaction by a single
+ * writer thread, every persistent statistic gets an index for leaderboard queries.
+ * The SQLite driver is shipped with every Spigot server.
+ */
+public class SqliteManager implements UserDatabase {
+
+  private static final String TABLE = "playerstats";
+  private static final String NAME_COLUMN = "name";
+  private static final long LOAD_RETRY_DELAY = 100;
+
+  private final PluginMain plugin;
+  private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "MiniGamesBox-SQLite-Writer");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private final Map<UUID, Map<String, Object>> pendingWrites = new ConcurrentHashMap<>();
+  //users whose statistics are not loaded yet or failed to load, they are never saved
+  private final Set<User> loading = ConcurrentHashMap.newKeySet();
+  private final Connection writeConnection;
+  //reads are serialized on their own connection, WAL lets them run next to the writer
+  private final Connection readConnection;
+  private final BukkitTask flushTask;
+
+  public SqliteManager(PluginMain plugin) {
+    this.plugin = plugin;
+    String url = "jdbc:sqlite:" + new File(plugin.getDataFolder(), "stats.db").getAbsolutePath();
+    try {
+      Class.forName("org.sqlite.JDBC");
+      writeConnection = DriverManager.getConnection(url);
+      readConnection = DriverManager.getConnection(url);
+      try(Statement statement = writeConnection.createStatement()) {
+        statement.execute("PRAGMA journal_mode=WAL");
+        statement.execute("PRAGMA synchronous=NORMAL");
+        statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + TABLE + " (UUID CHAR(36) NOT NULL PRIMARY KEY, " + NAME_COLUMN + " VARCHAR(32) NOT NULL DEFAULT '')");
+      }
+    } catch(ClassNotFoundException | SQLException exception) {
+      throw new IllegalStateException("Cannot open embedded stats database stats.db", exception);
+    }
+    long interval = Math.max(1, plugin.getConfig().getLong("Stats.Save-Interval", 30)) * 20;
+    this.flushTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, () -> writer.execute(this::flush), interval, interval);
+  }
+
+  @Override
+  public void saveStatistic(User user, StatisticType stat) {
+    if(loading.contains(user)) {
+      return;
+    }
+    queueWrite(user.getUniqueId(), stat.getName(), user.getStatistic(stat));
+  }
+
+  @Override
+  public void saveAllStatistic(User user) {
+    if(loading.contains(user)) {
+      plugin.getDebugger().debug("Skipping save of {0} because the statistics are not loaded", user.getUniqueId());
+      return;
+    }
+    UUID uuid = user.getUniqueId();
+    for(StatisticType statisticType : plugin.getStatsStorage().getStatistics().values()) {
+      if(statisticType.isPersistent()) {
+        queueWrite(uuid, statisticType.getName(), user.getStatistic(statisticType));
+      }
+    }
+    Player player = user.getPlayer();
+    if(player != null) {
+      queueWrite(uuid, NAME_COLUMN, player.getName());
+    }
+  }
+
+  private void queueWrite(UUID uuid, String column, Object value) {
+    pendingWrites.compute(uuid, (key, row) -> {
+      Map<String, Object> columns = row == null ? new TreeMap<>() : row;
+      columns.put(column, value);
+      return columns;
+    });
+  }
+
+  @Override
+  public void loadStatistics(User user) {
+    loading.add(user);
+    UUID uuid = user.getUniqueId();
+    Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+      Map<StatisticType, Integer> values = fetchStatistics(uuid);
+      Bukkit.getScheduler().runTask(plugin, () -> {
+        if(values == null) {
+          retryLoad(user);
+          return;
+        }
+        values.forEach(user::setStatistic);
+        loading.remove(user);
+      });
+    });
+  }
+
+  /**
+   * The user keeps its zero values after a failed load, saving them would overwrite the stored statistics.
+   * So the user is not saved until a load succeeded, the load is retried while the player is online.
+   */
+  private void retryLoad(User user) {
+    if(plugin.getUserManager().getUserIfPresent(user.getUniqueId()) != user) {
+      //player left, the statistics of this session are dropped
+      loading.remove(user);
+      return;
+    }
+    plugin.getDebugger().debug(Level.WARNING, "Statistics of {0} could not be loaded, they are not saved until loading them succeeds", user.getUniqueId());
+    Bukkit.getScheduler().runTaskLater(plugin, () -> loadStatistics(user), LOAD_RETRY_DELAY);
+  }
+
+  @Nullable
+  @Override
+  public Map<StatisticType, Integer> fetchStatistics(UUID uuid) {
+    //taken before the query so a flush in between can't hide a value
+    Map<String, Object> unwritten = new HashMap<>();
+    pendingWrites.computeIfPresent(uuid, (key, row) -> {
+      unwritten.putAll(row);
+      return row;
+    });
+    Map<StatisticType, Integer> values = new HashMap<>();
+    synchronized(readConnection) {
+      try(PreparedStatement statement = readConnection.prepareStatement("SELECT * FROM " + TABLE + " WHERE UUID=?")) {
+        statement.setString(1, uuid.toString());
+        try(ResultSet resultSet = statement.executeQuery()) {
+          boolean found = resultSet.next();
+          for(StatisticType statisticType : plugin.getStatsStorage().getStatistics().values()) {
+            if(!statisticType.isPersistent()) {
+              continue;
+            }
+            Object pending = unwritten.get(statisticType.getName());
+            if(pending instanceof Integer) {
+              values.put(statisticType, (Integer) pending);
+            } else if(found) {
+              values.put(statisticType, resultSet.getInt(statisticType.getName()));
+            }
+          }
+        }
+      } catch(SQLException exception) {
+        plugin.getLogger().log(Level.WARNING, "Could not load statistics of " + uuid, exception);
+        return null;
+      }
+    }
+    return values;
+  }
+
+  /**
+   * Writes every queued row in one transaction, rows with the same column set share one batch.
+   * Only runs on the writer thread.
+   *
+   * @return false if the rows could not be written and got queued again
+   */
+  private boolean flush() {
+    if(pendingWrites.isEmpty()) {
+      return true;
+    }
+    Map<String, List<Map.Entry<UUID, Map<String, Object>>>> groups = new HashMap<>();
+    for(UUID uuid : pendingWrites.keySet()) {
+      Map<String, Object> row = pendingWrites.remove(uuid);
+      if(row != null) {
+        groups.computeIfAbsent(String.join(",", row.keySet()), key -> new ArrayList<>()).add(Map.entry(uuid, row));
+      }
+    }
+    try {
+      writeConnection.setAutoCommit(false);
+      for(List<Map.Entry<UUID, Map<String, Object>>> rows : groups.values()) {
+        List<String> columns = new ArrayList<>(rows.get(0).getValue().keySet());
+        try(PreparedStatement statement = writeConnection.prepareStatement(buildUpsert(columns))) {
+          for(Map.Entry<UUID, Map<String, Object>> entry : rows) {
+            statement.setString(1, entry.getKey().toString());
+            for(int i = 0; i < columns.size(); i++) {
+              statement.setObject(i + 2, entry.getValue().get(columns.get(i)));
+            }
+            statement.addBatch();
+          }
+          statement.executeBatch();
+        }
+      }
+      writeConnection.commit();
+    } catch(SQLException exception) {
+      plugin.getLogger().log(Level.WARNING, "Failed to write statistics, retrying on next flush", exception);
+      try {
+        writeConnection.rollback();
+      } catch(SQLException ignored) {
+      }
+      groups.values().forEach(this::requeue);
+      return false;
+    } finally {
+      try {
+        writeConnection.setAutoCommit(true);
+      } catch(SQLException ignored) {
+      }
+    }
+    return true;
+  }
+
+  private String buildUpsert(List<String> columns) {
+    StringBuilder query = new StringBuilder("INSERT INTO ").append(TABLE).append(" (UUID");
+    columns.forEach(column -> query.append(", ").append(column));
+    query.append(") VALUES (?").append(", ?".repeat(columns.size())).append(") ON CONFLICT(UUID) DO UPDATE SET ");
+    for(int i = 0; i < columns.size(); i++) {
+      query.append(i == 0 ? "" : ", ").append(columns.get(i)).append("=excluded.").append(columns.get(i));
+    }
+    return query.toString();
+  }
+
+  private void requeue(List<Map.Entry<UUID, Map<String, Object>>> rows) {
+    for(Map.Entry<UUID, Map<String, Object>> entry : rows) {
+      //newer values which got queued in the meantime win
+      pendingWrites.merge(entry.getKey(), entry.getValue(), (newer, older) -> {
+        older.putAll(newer);
+        return older;
+      });
+    }
+  }
+
+  @Override
+  public void addColumn(String columnName, String columnProperties) {
+    writer.execute(() -> {
+      try(ResultSet columns = writeConnection.getMetaData().getColumns(null, null, TABLE, columnName);
+          Statement statement = writeConnection.createStatement()) {
+        if(!columns.next()) {
+          statement.executeUpdate("ALTER TABLE " + TABLE + " ADD COLUMN " + columnName + " " + columnProperties);
+        }
+        statement.executeUpdate("CREATE INDEX IF NOT EXISTS idx_" + TABLE + "_" + columnName + " ON " + TABLE + " (" + columnName + ")");
+      } catch(SQLException exception) {
+        plugin.getDebugger().debug(Level.WARNING, "Could not add column {0}: {1}", columnName, exception.getMessage());
+      }
+    });
+  }
+
+  @Override
+  public void dropColumn(String columnName) {
+    writer.execute(() -> {
+      try(Statement statement = writeConnection.createStatement()) {
+        statement.executeUpdate("DROP INDEX IF EXISTS idx_" + TABLE + "_" + columnName);
+        statement.executeUpdate("ALTER TABLE " + TABLE + " DROP COLUMN " + columnName);
+      } catch(SQLException exception) {
+        plugin.getDebugger().debug(Level.WARNING, "Could not drop column {0}: {1}", columnName, exception.getMessage());
+      }
+    });
+  }
+
+  /**
+   * Writes the queued rows before a query over all players, so rankings don't lag behind by the save interval
+   */
+  private void flushPending() {
+    if(pendingWrites.isEmpty()) {
+      return;
+    }
+    try {
+      writer.submit(this::flush).get();
+    } catch(ExecutionException | RejectedExecutionException exception) {
+      plugin.getLogger().log(Level.WARNING, "Could not write the queued statistics before reading them", exception);
+    } catch(InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @NotNull
+  @Override
+  public Map<UUID, Integer> getStats(StatisticType stat) {
+    flushPending();
+    Map<UUID, Integer> stats = new LinkedHashMap<>();
+    synchronized(readConnection) {
+      try(Statement statement = readConnection.createStatement();
+          ResultSet resultSet = statement.executeQuery("SELECT UUID, " + stat.getName() + " FROM " + TABLE + " ORDER BY " + stat.getName() + " ASC")) {
+        while(resultSet.next()) {
+          try {
+            stats.put(UUID.fromString(resultSet.getString(1)), resultSet.getInt(2));
+          } catch(IllegalArgumentException ex) {
+            plugin.getLogger().log(Level.WARNING, "Cannot load the UUID for {0}", resultSet.getString(1));
+          }
+        }
+      } catch(SQLException exception) {
+        plugin.getLogger().log(Level.WARNING, "Could not read statistic " + stat.getName(), exception);
+      }
+    }
+    return stats;
+  }
+
+  @NotNull
+  @Override
+  public List<Map.Entry<UUID, Integer>> getTopStats(StatisticType stat, int limit, int offset) {
+    flushPending();
+    List<Map.Entry<UUID, Integer>> top = new ArrayList<>();
+    synchronized(readConnection) {
+      try(PreparedStatement statement = readConnection.prepareStatement("SELECT UUID, " + stat.getName() + " FROM " + TABLE + " ORDER BY " + stat.getName() + " DESC, UUID ASC LIMIT ? OFFSET ?")) {
+        statement.setInt(1, limit);
+        statement.setInt(2, offset);
+        try(ResultSet resultSet = statement.executeQuery()) {
+          while(resultSet.next()) {
+            try {
+              top.add(new AbstractMap.SimpleImmutableEntry<>(UUID.fromString(resultSet.getString(1)), resultSet.getInt(2)));
+            } catch(IllegalArgumentException ex) {
+              plugin.getLogger().log(Level.WARNING, "Cannot load the UUID for {0}", resultSet.getString(1));
+            }
+          }
+        }
+      } catch(SQLException exception) {
+        plugin.getLogger().log(Level.WARNING, "Could not read top of statistic " + stat.getName(), exception);
+      }
+    }
+    return top;
+  }
+
+  @Override
+  public int getRank(UUID uuid, StatisticType stat) {
+    flushPending();
+    synchronized(readConnection) {
+      try(PreparedStatement value = readConnection.prepareStatement("SELECT " + stat.getName() + " FROM " + TABLE + " WHERE UUID=?");
+          PreparedStatement better = readConnection.prepareStatement("SELECT COUNT(*) FROM " + TABLE + " WHERE " + stat.getName() + " > ? OR (" + stat.getName() + " = ? AND UUID < ?)")) {
+        value.setString(1, uuid.toString());
+        int playerValue;
+        try(ResultSet resultSet = value.executeQuery()) {
+          if(!resultSet.next()) {
+            return 0;
+          }
+          playerValue = resultSet.getInt(1);
+        }
+        better.setInt(1, playerValue);
+        better.setInt(2, playerValue);
+        better.setString(3, uuid.toString());
+        try(ResultSet resultSet = better.executeQuery()) {
+          return resultSet.next() ? resultSet.getInt(1) + 1 : 0;
+        }
+      } catch(SQLException exception) {
+        plugin.getLogger().log(Level.WARNING, "Could not read rank of " + uuid + " for statistic " + stat.getName(), exception);
+      }
+    }
+    return 0;
+  }
+
+  @NotNull
+  @Override
+  public List<StatsRecord> readRecords(@Nullable UUID after, int limit) {
+    List<StatsRecord> records = new ArrayList<>();
+    synchronized(readConnection) {
+      try(PreparedStatement statement = readConnection.prepareStatement("SELECT * FROM " + TABLE + " WHERE UUID > ? ORDER BY UUID LIMIT ?")) {
+        statement.setString(1, after == null ? "" : after.toString());
+        statement.setInt(2, limit);
+        try(ResultSet resultSet = statement.executeQuery()) {
+          Set<String> columns = getColumns(resultSet.getMetaData());
+          while(resultSet.next()) {
+            Map<String, Integer> values = new HashMap<>();
+            for(StatisticType statisticType : plugin.getStatsStorage().getStatistics().values()) {
+              if(statisticType.isPersistent() && columns.contains(statisticType.getName().toLowerCase())) {
+                values.put(statisticType.getName(), resultSet.getInt(statisticType.getName()));
+              }
+            }
+            try {
+              records.add(new StatsRecord(UUID.fromString(resultSet.getString("UUID")), resultSet.getString(NAME_COLUMN), values));
+            } catch(IllegalArgumentException ex) {
+              plugin.getLogger().log(Level.WARNING, "Cannot load the UUID for {0}", resultSet.getString("UUID"));
+            }
+          }
+        }
+      } catch(SQLException exception) {
+        throw new IllegalStateException("Could not read players of stats.db", exception);
+      }
+    }
+    return records;
+  }
+
+  private Set<String> getColumns(ResultSetMetaData metaData) throws SQLException {
+    Set<String> columns = new HashSet<>();
+    for(int i = 1; i <= metaData.getColumnCount(); i++) {
+      columns.add(metaData.getColumnLabel(i).toLowerCase());
+    }
+    return columns;
+  }
+
+  @Override
+  public boolean writeRecords(List<StatsRecord> records) {
+    List<Map.Entry<UUID, Map<String, Object>>> rows = new ArrayList<>();
+    for(StatsRecord record : records) {
+      Map<String, Object> row = new TreeMap<>(record.getValues());
+      if(record.getName() != null) {
+        row.put(NAME_COLUMN, record.getName());
+      }
+      rows.add(Map.entry(record.getUniqueId(), row));
+    }
+    requeue(rows);
+    try {
+      return writer.submit(this::flush).get();
+    } catch(ExecutionException exception) {
+      plugin.getLogger().log(Level.WARNING, "Could not write " + records.size() + " players", exception);
+    } catch(InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    }
+    return false;
+  }
+
+  @Override
+  public void disable() {
+    for(Player player : plugin.getServer().getOnlinePlayers()) {
+      saveAllStatistic(plugin.getUserManager().getUser(player));
+    }
+    close();
+  }
+
+  @Override
+  public void close() {
+    flushTask.cancel();
+    writer.execute(this::flush);
+    writer.shutdown();
+    try {
+      if(!writer.awaitTermination(30, TimeUnit.SECONDS)) {
+        plugin.getLogger().log(Level.WARNING, "Timed out while writing the remaining {0} statistic rows", pendingWrites.size());
+      }
+    } catch(InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    }
+    try {
+      readConnection.close();
+      writeConnection.close();
+    } catch(SQLException exception) {
+      plugin.getLogger().log(Level.WARNING, "Could not close stats.db", exception);
+    }
+  }
+
+  @Override
+  public MysqlDatabase getMySQLDatabase() {
+    return null;
+  }
+
+  @Override
+  public String getPlayerName(UUID uuid) {
+    synchronized(readConnection) {
+      try(PreparedStatement statement = readConnection.prepareStatement("SELECT " + NAME_COLUMN + " FROM " + TABLE + " WHERE UUID=?")) {
+        statement.setString(1, uuid.toString());
+        try(ResultSet resultSet = statement.executeQuery()) {
+          if(resultSet.next() && !resultSet.getString(1).isEmpty()) {
+            return resultSet.getString(1);
+          }
+        }
+      } catch(SQLException exception) {
+        plugin.getLogger().log(Level.WARNING, "Could not read player name of " + uuid, exception);
+      }
+    }
+    return Bukkit.getOfflinePlayer(uuid).getName();
+  }
+
+  @Override
+  public Map<UUID, String> getPlayerNames(Collection<UUID> uuids) {
+    Map<UUID, String> names = new HashMap<>();
+    if(uuids.isEmpty()) {
+      return names;
+    }
+    String query = "SELECT UUID, " + NAME_COLUMN + " FROM " + TABLE + " WHERE UUID IN (" + String.join(", ", Collections.nCopies(uuids.size(), "?")) + ")";
+    synchronized(readConnection) {
+      try(PreparedStatement statement = readConnection.prepareStatement(query)) {
+        int index = 1;
+        for(UUID uuid : uuids) {
+          statement.setString(index++, uuid.toString());
+        }
+        try(ResultSet resultSet = statement.executeQuery()) {
+          while(resultSet.next()) {
+            if(!resultSet.getString(2).isEmpty()) {
+              names.put(UUID.fromString(resultSet.getString(1)), resultSet.getString(2));
+            }
+          }
+        }
+      } catch(SQLException exception) {
+        plugin.getLogger().log(Level.WARNING, "Could not read player names", exception);
+      }
+    }
+    for(UUID uuid : uuids) {
+      if(!names.containsKey(uuid)) {
+        String name = Bukkit.getOfflinePlayer(uuid).getName();
+        if(name != null) {
+          names.put(uuid, name);
+        }
+      }
+    }
+    return names;
+  }
+
+  @Override
+  public void savePlayerName(UUID uuid, String name) {
+    queueWrite(uuid, NAME_COLUMN, name);
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ *  MiniGamesBox - Library box with massive content that could be seen as minigames core.
+ *  Copyright (C) 2023 Plugily Projects - maintained by Tigerpanzer_02 and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package plugily.projects.minigamesbox.classic.user.data;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends players to a NDJSON or CSV file, every chunk is forced to disk
+ * so an interrupted export can continue at the last written position.
+ */
+class StatsExporter implements Closeable {
+
+  enum Format {
+    NDJSON, CSV
+  }
+
+  private final Format format;
+  private final List<String> statistics;
+  private final FileChannel channel;
+
+  /**
+   * @param file       the export file
+   * @param format     the format of the file
+   * @param statistics the exported statistics, also the CSV columns
+   * @param position   length of the file written by a previous run, everything behind it gets removed
+   */
+  StatsExporter(File file, Format format, List<String> statistics, long position) throws IOException {
+    this.format = format;
+    this.statistics = statistics;
+    this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    channel.truncate(position);
+    channel.position(position);
+    if(position == 0 && format == Format.CSV) {
+      StringBuilder header = new StringBuilder("uuid,name");
+      statistics.forEach(statistic -> header.append(',').append(statistic));
+      write(header.append('\n'));
+    }
+  }
+
+  /**
+   * @return length of the file after the records were written
+   */
+  long write(List<StatsRecord> records) throws IOException {
+    StringBuilder lines = new StringBuilder();
+    for(StatsRecord record : records) {
+      if(format == Format.CSV) {
+        lines.append(record.getUniqueId()).append(',').append(record.getName() == null ? "" : escapeCsv(record.getName()));
+        for(String statistic : statistics) {
+          Integer value = record.getValues().get(statistic);
+          lines.append(',').append(value == null ? "" : value.toString());
+        }
+      } else {
+        lines.append("{\"uuid\":\"").append(record.getUniqueId()).append('"');
+        if(record.getName() != null) {
+          lines.append(",\"name\":\"").append(escapeJson(record.getName())).append('"');
+        }
+        record.getValues().forEach((statistic, value) -> lines.append(",\"").append(escapeJson(statistic)).append("\":").append(value));
+        lines.append('}');
+      }
+      lines.append('\n');
+    }
+    write(lines);
+    return channel.position();
+  }
+
+  private void write(CharSequence data) throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(data.toString().getBytes(StandardCharsets.UTF_8));
+    while(buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    channel.force(false);
+  }
+
+  private String escapeCsv(String value) {
+    if(value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+      return value;
+    }
+    return '"' + value.replace("\"", "\"\"") + '"';
+  }
+
+  private String escapeJson(String value) {
+    StringBuilder escaped = new StringBuilder(value.length());
+    for(char character : value.toCharArray()) {
+      if(character == '"' || character == '\\') {
+        escaped.append('\\').append(character);
+      } else if(character < 0x20) {
+        escaped.append(String.format("\\u%04x", (int) character));
+      } else {
+        escaped.append(character);
+      }
+    }
+    return escaped.toString();
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+}
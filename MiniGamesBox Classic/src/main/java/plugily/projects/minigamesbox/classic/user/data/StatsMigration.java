@@ -0,0 +1,242 @@
+/*
+ *  MiniGamesBox - Library box with massive content that could be seen as minigames core.
+ *  Copyright (C) 2023 Plugily Projects - maintained by Tigerpanzer_02 and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package plugily.projects.minigamesbox.classic.user.data;
+
+import org.bukkit.Bukkit;
+import plugily.projects.minigamesbox.classic.PluginMain;
+import plugily.projects.minigamesbox.classic.api.StatisticType;
+import plugily.projects.minigamesbox.classic.user.UserManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * Copies the statistics of every player from one storage into another storage or an export file.
+ * <p>
+ * Players are streamed in chunks ordered by UUID, so only one chunk is kept in memory.
+ * After every chunk the last UUID is stored in {@code stats-migration.properties},
+ * a cancelled or failed migration continues there on the next start with the same source and target.
+ * Changes made while migrating are not copied for players which were already migrated.
+ */
+public class StatsMigration {
+
+  public static final List<String> EXPORT_FORMATS = Arrays.asList("NDJSON", "CSV");
+  private static final long PROGRESS_INTERVAL = 5000;
+
+  private final PluginMain plugin;
+  private final String source;
+  private final String target;
+  private final int chunkSize;
+  private final File checkpointFile;
+  private volatile boolean running;
+  private volatile boolean cancelled;
+  private volatile long migrated;
+
+  /**
+   * @param plugin    the plugin
+   * @param source    storage to read from, one of {@link UserManager#STORAGE_TYPES}
+   * @param target    storage to write to or one of {@link #EXPORT_FORMATS}
+   * @param chunkSize amount of players read and written at once
+   * @throws IllegalArgumentException if source or target are not valid
+   */
+  public StatsMigration(PluginMain plugin, String source, String target, int chunkSize) {
+    this.plugin = plugin;
+    this.source = source.toUpperCase(Locale.ENGLISH);
+    this.target = target.toUpperCase(Locale.ENGLISH);
+    this.chunkSize = Math.max(1, chunkSize);
+    this.checkpointFile = new File(plugin.getDataFolder(), "stats-migration.properties");
+    if(!UserManager.STORAGE_TYPES.contains(this.source)) {
+      throw new IllegalArgumentException("Unknown source " + source + ", use one of " + UserManager.STORAGE_TYPES);
+    }
+    if(!UserManager.STORAGE_TYPES.contains(this.target) && !EXPORT_FORMATS.contains(this.target)) {
+      throw new IllegalArgumentException("Unknown target " + target + ", use one of " + UserManager.STORAGE_TYPES + " or " + EXPORT_FORMATS);
+    }
+    if(this.source.equals(this.target)) {
+      throw new IllegalArgumentException("Source and target are the same storage");
+    }
+    //live changes would be overwritten by older values of the source
+    if(this.target.equals(plugin.getUserManager().getStorageType())) {
+      throw new IllegalArgumentException("Target " + target + " is the storage in use, migrate before switching to it");
+    }
+  }
+
+  /**
+   * Runs the migration asynchronously
+   *
+   * @param progress receives progress messages on the main thread
+   */
+  public void start(Consumer<String> progress) {
+    running = true;
+    Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+      String result;
+      try {
+        result = migrate(message -> Bukkit.getScheduler().runTask(plugin, () -> progress.accept(message)));
+      } catch(IOException | RuntimeException exception) {
+        plugin.getLogger().log(Level.WARNING, "Statistic migration from " + source + " to " + target + " failed", exception);
+        result = "Migration failed after " + migrated + " players, run it again to continue: " + exception.getMessage();
+      } finally {
+        running = false;
+      }
+      String message = result;
+      Bukkit.getScheduler().runTask(plugin, () -> progress.accept(message));
+    });
+  }
+
+  private String migrate(Consumer<String> progress) throws IOException {
+    Properties checkpoint = loadCheckpoint();
+    UUID after = checkpoint.containsKey("after") ? UUID.fromString(checkpoint.getProperty("after")) : null;
+    migrated = Long.parseLong(checkpoint.getProperty("migrated", "0"));
+    long position = Long.parseLong(checkpoint.getProperty("position", "0"));
+    if(after != null) {
+      progress.accept("Continuing migration after " + migrated + " players");
+    }
+    List<String> statistics = new ArrayList<>();
+    for(StatisticType statisticType : plugin.getStatsStorage().getStatistics().values()) {
+      if(statisticType.isPersistent()) {
+        statistics.add(statisticType.getName());
+      }
+    }
+    statistics.sort(null);
+    UserManager userManager = plugin.getUserManager();
+    boolean ownSource = !source.equals(userManager.getStorageType());
+    UserDatabase from = ownSource ? userManager.createDatabase(source) : userManager.getDatabase();
+    UserDatabase to = null;
+    StatsExporter exporter = null;
+    try {
+      if(EXPORT_FORMATS.contains(target)) {
+        exporter = new StatsExporter(getExportFile(), StatsExporter.Format.valueOf(target), statistics, position);
+      } else {
+        to = userManager.createDatabase(target);
+        for(StatisticType statisticType : plugin.getStatsStorage().getStatistics().values()) {
+          if(statisticType.isPersistent()) {
+            to.addColumn(statisticType.getName(), statisticType.getDatabaseParameters());
+          }
+        }
+      }
+      long start = System.currentTimeMillis();
+      long startMigrated = migrated;
+      long lastProgress = start;
+      while(!cancelled) {
+        List<StatsRecord> records = from.readRecords(after, chunkSize);
+        if(records.isEmpty()) {
+          Files.deleteIfExists(checkpointFile.toPath());
+          return "Migrated " + migrated + " players from " + source + " to " + (exporter != null ? getExportFile().getName() : target);
+        }
+        if(exporter != null) {
+          position = exporter.write(records);
+        } else if(!to.writeRecords(records)) {
+          return "Could not write players into " + target + " after " + migrated + " players, run it again to continue";
+        }
+        after = records.get(records.size() - 1).getUniqueId();
+        migrated += records.size();
+        saveCheckpoint(after, position);
+        long now = System.currentTimeMillis();
+        if(now - lastProgress >= PROGRESS_INTERVAL) {
+          lastProgress = now;
+          progress.accept("Migrated " + migrated + " players (" + (migrated - startMigrated) * 1000 / Math.max(1, now - start) + " players/s)");
+        }
+      }
+      return "Migration cancelled after " + migrated + " players, run it again to continue";
+    } finally {
+      if(exporter != null) {
+        exporter.close();
+      }
+      if(to != null) {
+        to.close();
+      }
+      if(ownSource) {
+        from.close();
+      }
+    }
+  }
+
+  private File getExportFile() {
+    return new File(plugin.getDataFolder(), "stats-export." + target.toLowerCase(Locale.ENGLISH));
+  }
+
+  private Properties loadCheckpoint() throws IOException {
+    Properties checkpoint = new Properties();
+    if(checkpointFile.exists()) {
+      try(InputStream input = Files.newInputStream(checkpointFile.toPath())) {
+        checkpoint.load(input);
+      }
+    }
+    //only continue the same migration
+    if(!source.equals(checkpoint.getProperty("source")) || !target.equals(checkpoint.getProperty("target"))) {
+      checkpoint.clear();
+    }
+    return checkpoint;
+  }
+
+  private void saveCheckpoint(UUID after, long position) throws IOException {
+    Properties checkpoint = new Properties();
+    checkpoint.setProperty("source", source);
+    checkpoint.setProperty("target", target);
+    checkpoint.setProperty("after", after.toString());
+    checkpoint.setProperty("migrated", Long.toString(migrated));
+    checkpoint.setProperty("position", Long.toString(position));
+    Path temp = new File(plugin.getDataFolder(), checkpointFile.getName() + ".tmp").toPath();
+    try(OutputStream output = Files.newOutputStream(temp)) {
+      checkpoint.store(output, "Progress of the statistic migration, delete it to start over");
+    }
+    try {
+      Files.move(temp, checkpointFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch(AtomicMoveNotSupportedException exception) {
+      Files.move(temp, checkpointFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  /**
+   * Stops the migration after the current chunk, it continues there on the next start
+   */
+  public void cancel() {
+    cancelled = true;
+  }
+
+  public boolean isRunning() {
+    return running;
+  }
+
+  public long getMigrated() {
+    return migrated;
+  }
+
+  public String getSource() {
+    return source;
+  }
+
+  public String getTarget() {
+    return target;
+  }
+
+}
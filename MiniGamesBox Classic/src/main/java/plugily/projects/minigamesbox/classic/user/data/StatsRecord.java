@@ -0,0 +1,60 @@
+/*
+ *  MiniGamesBox - Library box with massive content that could be seen as minigames core.
+ *  Copyright (C) 2023 Plugily Projects - maintained by Tigerpanzer_02 and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package plugily.projects.minigamesbox.classic.user.data;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Stored statistics of one player as they are moved between storages
+ */
+public class StatsRecord {
+
+  private final UUID uuid;
+  private final String name;
+  private final Map<String, Integer> values;
+
+  /**
+   * @param uuid   the player
+   * @param name   the last known name or null
+   * @param values stored values by statistic name
+   */
+  public StatsRecord(UUID uuid, @Nullable String name, Map<String, Integer> values) {
+    this.uuid = uuid;
+    this.name = name == null || name.isEmpty() ? null : name;
+    this.values = new TreeMap<>(values);
+  }
+
+  public UUID getUniqueId() {
+    return uuid;
+  }
+
+  @Nullable
+  public String getName() {
+    return name;
+  }
+
+  public Map<String, Integer> getValues() {
+    return values;
+  }
+
+}
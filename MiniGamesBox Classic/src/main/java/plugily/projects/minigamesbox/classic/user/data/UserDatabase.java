@@ -23,7 +23,12 @@ import org.jetbrains.annotations.Nullable;
 import plugily.projects.minigamesbox.database.MysqlDatabase;
 import plugily.projects.minigamesbox.classic.api.StatisticType;
 import plugily.projects.minigamesbox.classic.user.User;
+import plugily.projects.minigamesbox.sorter.TopCollector;
 
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -34,6 +39,15 @@ import java.util.UUID;
  */
 public interface UserDatabase {
 
+  /**
+   * Order of players with the same statistic value in every storage and leaderboard.
+   * The same as ordering the UUID strings like the SQL storages do, without creating the strings
+   */
+  Comparator<UUID> TIE_BREAK = (first, second) -> {
+    int compare = Long.compareUnsigned(first.getMostSignificantBits(), second.getMostSignificantBits());
+    return compare != 0 ? compare : Long.compareUnsigned(first.getLeastSignificantBits(), second.getLeastSignificantBits());
+  };
+
   /**
    * Saves player statistic into yaml or MySQL storage based on user choice
    *
@@ -56,6 +70,18 @@ public interface UserDatabase {
    */
   void loadStatistics(User user);
 
+  /**
+   * Fetches the stored statistics of a player without applying them to a user.
+   * Blocking call which is meant to be used off the main thread e.g. on pre login
+   *
+   * @param uuid the UUID of the player
+   * @return stored statistic values or null if they could not be loaded, storages without support always return null
+   */
+  @Nullable
+  default Map<StatisticType, Integer> fetchStatistics(UUID uuid) {
+    return null;
+  }
+
   /**
    * Add a column on mysql database instances, skips for file stats
    *
@@ -80,11 +106,85 @@ public interface UserDatabase {
   @NotNull
   Map<UUID, Integer> getStats(StatisticType stat);
 
+  /**
+   * Get the best players of a statistic without loading every player
+   *
+   * @param stat   Statistic type to get (kills, deaths etc.)
+   * @param limit  maximum amount of entries
+   * @param offset amount of best players to skip e.g. for pages
+   * @return entries of UUID and value ordered from highest to lowest value
+   */
+  @NotNull
+  default List<Map.Entry<UUID, Integer>> getTopStats(StatisticType stat, int limit, int offset) {
+    //storages without a cheaper way have to load every player
+    TopCollector<UUID> collector = new TopCollector<>(limit, offset, TIE_BREAK);
+    getStats(stat).forEach(collector::offer);
+    return collector.getResult();
+  }
+
+  /**
+   * Get the position of a player for a statistic, players with the same value are ordered by UUID
+   *
+   * @param uuid the UUID of the player
+   * @param stat Statistic type to get (kills, deaths etc.)
+   * @return position starting at 1, 0 if nothing is stored for the player
+   */
+  default int getRank(UUID uuid, StatisticType stat) {
+    Map<UUID, Integer> stats = getStats(stat);
+    Integer value = stats.get(uuid);
+    if(value == null) {
+      return 0;
+    }
+    int rank = 1;
+    for(Map.Entry<UUID, Integer> entry : stats.entrySet()) {
+      if(entry.getValue() > value || (entry.getValue().equals(value) && TIE_BREAK.compare(entry.getKey(), uuid) < 0)) {
+        rank++;
+      }
+    }
+    return rank;
+  }
+
+  /**
+   * Reads the stored players following the given UUID, ordered by the UUID string.
+   * Used to stream every player in chunks e.g. for migrations.
+   * Blocking call which is meant to be used off the main thread
+   *
+   * @param after last UUID of the previous chunk or null to start with the first player
+   * @param limit maximum amount of players
+   * @return the players with their persistent statistics, empty once every player was read
+   * @throws IllegalStateException if the storage can't be read
+   * @throws UnsupportedOperationException if the storage can't be streamed
+   */
+  @NotNull
+  default List<StatsRecord> readRecords(@Nullable UUID after, int limit) {
+    throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support reading all players");
+  }
+
+  /**
+   * Writes the players in batches, stored values are replaced.
+   * Blocking call which is meant to be used off the main thread
+   *
+   * @param records the players to write
+   * @return true if every player was written, storages without support always return false
+   */
+  default boolean writeRecords(List<StatsRecord> records) {
+    return false;
+  }
+
   /**
    * Disable the database
    */
   void disable();
 
+  /**
+   * Writes pending changes and shuts the database down without saving the players online,
+   * used for databases which are not the storage in use e.g. while migrating.
+   * Databases without support are disabled
+   */
+  default void close() {
+    disable();
+  }
+
 
   /**
    * Get the MySQL Database if there is any
@@ -101,4 +201,33 @@ public interface UserDatabase {
    */
   @Nullable
   String getPlayerName(UUID uuid);
+
+  /**
+   * Get the names of several players at once.
+   * Blocking call which is meant to be used off the main thread
+   *
+   * @param uuids the UUIDs
+   * @return the known names, unknown players are missing
+   */
+  @NotNull
+  default Map<UUID, String> getPlayerNames(Collection<UUID> uuids) {
+    Map<UUID, String> names = new HashMap<>();
+    for(UUID uuid : uuids) {
+      String name = getPlayerName(uuid);
+      if(name != null) {
+        names.put(uuid, name);
+      }
+    }
+    return names;
+  }
+
+  /**
+   * Stores the current name of a player without touching the statistics,
+   * so leaderboards know it after a restart or name change
+   *
+   * @param uuid the UUID
+   * @param name the current name
+   */
+  default void savePlayerName(UUID uuid, String name) {
+  }
 }
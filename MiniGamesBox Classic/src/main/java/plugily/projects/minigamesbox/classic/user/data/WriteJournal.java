@@ -0,0 +1,132 @@
+/*
+ *  MiniGamesBox - Library box with massive content that could be seen as minigames core.
+ *  Copyright (C) 2023 Plugily Projects - maintained by Tigerpanzer_02 and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package plugily.projects.minigamesbox.classic.user.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Append only file of statistic rows which could not be written into the database.
+ * Every append is forced to disk so the rows survive a crash until they are replayed.
+ * <p>
+ * Line format: {@code uuid<TAB>column=i<number><TAB>column=s<text>...}
+ */
+class WriteJournal {
+
+  private final File file;
+  private FileChannel channel;
+
+  WriteJournal(File file) {
+    this.file = file;
+  }
+
+  /**
+   * @return all rows of the journal in the order they were appended, incomplete lines are skipped
+   */
+  List<Map.Entry<UUID, Map<String, Object>>> read() throws IOException {
+    List<Map.Entry<UUID, Map<String, Object>>> rows = new ArrayList<>();
+    if(!file.exists()) {
+      return rows;
+    }
+    String content = Files.readString(file.toPath(), StandardCharsets.UTF_8);
+    //a line without line break was cut off while writing
+    for(String line : content.substring(0, content.lastIndexOf('\n') + 1).split("\n")) {
+      Map.Entry<UUID, Map<String, Object>> row = parseLine(line);
+      if(row != null) {
+        rows.add(row);
+      }
+    }
+    return rows;
+  }
+
+  void append(List<Map.Entry<UUID, Map<String, Object>>> rows) throws IOException {
+    StringBuilder lines = new StringBuilder();
+    for(Map.Entry<UUID, Map<String, Object>> row : rows) {
+      lines.append(row.getKey());
+      for(Map.Entry<String, Object> column : row.getValue().entrySet()) {
+        Object value = column.getValue();
+        lines.append('\t').append(column.getKey()).append('=');
+        if(value instanceof Integer) {
+          lines.append('i').append(value);
+        } else {
+          lines.append('s').append(String.valueOf(value).replace('\t', ' ').replace('\n', ' '));
+        }
+      }
+      lines.append('\n');
+    }
+    ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+    FileChannel fileChannel = getChannel();
+    while(buffer.hasRemaining()) {
+      fileChannel.write(buffer);
+    }
+    fileChannel.force(false);
+  }
+
+  void clear() throws IOException {
+    getChannel().truncate(0);
+    channel.force(false);
+  }
+
+  void close() throws IOException {
+    if(channel != null) {
+      channel.close();
+      channel = null;
+    }
+  }
+
+  private FileChannel getChannel() throws IOException {
+    if(channel == null) {
+      channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+    return channel;
+  }
+
+  private Map.Entry<UUID, Map<String, Object>> parseLine(String line) {
+    String[] parts = line.split("\t");
+    if(parts.length < 2) {
+      return null;
+    }
+    try {
+      UUID uuid = UUID.fromString(parts[0]);
+      Map<String, Object> columns = new TreeMap<>();
+      for(int i = 1; i < parts.length; i++) {
+        int separator = parts[i].indexOf('=');
+        if(separator <= 0 || separator + 1 >= parts[i].length()) {
+          return null;
+        }
+        String value = parts[i].substring(separator + 2);
+        columns.put(parts[i].substring(0, separator), parts[i].charAt(separator + 1) == 'i' ? (Object) Integer.parseInt(value) : value);
+      }
+      return Map.entry(uuid, columns);
+    } catch(IllegalArgumentException exception) {
+      return null;
+    }
+  }
+
+}
@@ -0,0 +1,102 @@
+/*
+ *  MiniGamesBox - Library box with massive content that could be seen as minigames core.
+ *  Copyright (C) 2023 Plugily Projects - maintained by Tigerpanzer_02 and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package plugily.projects.minigamesbox.database;
+
+/**
+ * Stops connection attempts for a while after several attempts in a row failed,
+ * so callers fail fast instead of waiting for the connection timeout of a dead server.
+ * After the open time one attempt is let through, its result closes or opens the circuit again.
+ */
+public class CircuitBreaker {
+
+  public enum State {
+    CLOSED, OPEN, HALF_OPEN
+  }
+
+  private final int failureThreshold;
+  private final long openMillis;
+  private State state = State.CLOSED;
+  private int failures = 0;
+  private long openedAt = 0;
+
+  public CircuitBreaker(int failureThreshold, long openMillis) {
+    this.failureThreshold = Math.max(1, failureThreshold);
+    this.openMillis = openMillis;
+  }
+
+  /**
+   * @return true if an attempt may be made now
+   */
+  public synchronized boolean tryAcquire() {
+    switch(state) {
+      case CLOSED:
+        return true;
+      case OPEN:
+        if(System.currentTimeMillis() - openedAt < openMillis) {
+          return false;
+        }
+        //let exactly one probe through
+        state = State.HALF_OPEN;
+        return true;
+      case HALF_OPEN:
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * @return true if the circuit was not closed before
+   */
+  public synchronized boolean recordSuccess() {
+    boolean recovered = state != State.CLOSED;
+    state = State.CLOSED;
+    failures = 0;
+    return recovered;
+  }
+
+  /**
+   * @return true if the circuit opened because of this failure
+   */
+  public synchronized boolean recordFailure() {
+    failures++;
+    if(state == State.HALF_OPEN || (state == State.CLOSED && failures >= failureThreshold)) {
+      boolean opened = state == State.CLOSED;
+      state = State.OPEN;
+      openedAt = System.currentTimeMillis();
+      return opened;
+    }
+    return false;
+  }
+
+  /**
+   * Records an attempt which tells nothing about the database e.g. a timeout of a full pool.
+   * A probe of the half open circuit is let through again on the next attempt
+   */
+  public synchronized void recordInconclusive() {
+    if(state == State.HALF_OPEN) {
+      state = State.OPEN;
+    }
+  }
+
+  public synchronized State getState() {
+    return state;
+  }
+
+}
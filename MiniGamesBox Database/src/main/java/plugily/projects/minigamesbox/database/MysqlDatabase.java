@@ -20,10 +20,26 @@ package plugily.projects.minigamesbox.database;
 
 import com.zaxxer.hikari.HikariDataSource;
 
+import javax.sql.DataSource;
+import java.net.SocketException;
+import java.net.UnknownHostException;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientConnectionException;
 import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -35,12 +51,26 @@ import java.util.logging.Logger;
  */
 public class MysqlDatabase {
 
+  private static final int EXECUTOR_QUEUE_SIZE = 1000;
+
+  //null if the pool of another plugin is used
   private HikariDataSource hikariDataSource;
+  private DataSource dataSource;
   private final Logger databaseLogger = Logger.getLogger("MinigamesBox Database");
+  private ExecutorService executor;
+  private final PoolMetricsTracker metricsTracker = new PoolMetricsTracker();
+  private final List<Consumer<PoolStatistics>> metricsListeners = new CopyOnWriteArrayList<>();
+  private CircuitBreaker circuitBreaker = new CircuitBreaker(3, 30000);
 
   public MysqlDatabase(String user, String password, String jdbcUrl, long maxLifeTime) {
+    this(user, password, jdbcUrl, new PoolSettings().setMaxLifetime(maxLifeTime));
+  }
+
+  public MysqlDatabase(String user, String password, String jdbcUrl, PoolSettings settings) {
     databaseLogger.log(Level.INFO, "Configuring MySQL connection!");
-    configureConnPool(user, password, jdbcUrl, maxLifeTime);
+    circuitBreaker = new CircuitBreaker(settings.getFailureThreshold(), settings.getCircuitOpenTime());
+    configureConnPool(user, password, jdbcUrl, settings);
+    executor = createExecutor();
 
     try(Connection connection = getConnection()) {
       if(connection == null) {
@@ -54,6 +84,7 @@ public class MysqlDatabase {
   public MysqlDatabase(String user, String password, String host, String database, int port, long maxLifeTime) {
     databaseLogger.log(Level.INFO, "Configuring MySQL connection!");
     configureConnPool(user, password, host, database, port, maxLifeTime);
+    executor = createExecutor();
 
     try(Connection connection = getConnection()) {
       if(connection == null) {
@@ -64,15 +95,36 @@ public class MysqlDatabase {
     }
   }
 
-  private void configureConnPool(String user, String password, String jdbcUrl, long maxLifeTime) {
+  /**
+   * Uses a connection pool shared between plugins, see {@link SharedDataSource}.
+   * {@link #shutdownConnPool()} does not close the shared pool.
+   *
+   * @param sharedPool the pool to use
+   * @param settings   only the circuit breaker and the amount of asynchronous query threads are used
+   */
+  public MysqlDatabase(DataSource sharedPool, PoolSettings settings) {
+    databaseLogger.log(Level.INFO, "Using shared MySQL connection pool!");
+    circuitBreaker = new CircuitBreaker(settings.getFailureThreshold(), settings.getCircuitOpenTime());
+    dataSource = sharedPool;
+    executor = createExecutor(settings.getMaximumPoolSize());
+  }
+
+  private void configureConnPool(String user, String password, String jdbcUrl, PoolSettings settings) {
     try {
       databaseLogger.info("Creating HikariCP Configuration...");
       HikariDataSource config = new HikariDataSource();
       config.setJdbcUrl(jdbcUrl);
-      config.setMaxLifetime(maxLifeTime);
+      applySettings(config, settings);
       config.addDataSourceProperty("user", user);
       config.addDataSourceProperty("password", password);
+      //prepared statements are cached by the driver and on the server instead of parsed on every call
+      config.addDataSourceProperty("cachePrepStmts", "true");
+      config.addDataSourceProperty("prepStmtCacheSize", "250");
+      config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+      config.addDataSourceProperty("useServerPrepStmts", "true");
+      config.addDataSourceProperty("rewriteBatchedStatements", "true");
       hikariDataSource = config;
+      dataSource = config;
       databaseLogger.info("Setting up MySQL Connection pool...");
       databaseLogger.info("Connection pool successfully configured. ");
     } catch(Exception e) {
@@ -92,8 +144,9 @@ public class MysqlDatabase {
       config.addDataSourceProperty("databaseName", database);
       config.addDataSourceProperty("user", user);
       config.addDataSourceProperty("password", password);
-      config.setMaxLifetime(maxLifeTime);
+      applySettings(config, new PoolSettings().setMaxLifetime(maxLifeTime));
       hikariDataSource = config;
+      dataSource = config;
       databaseLogger.info("Setting up MySQL Connection pool...");
       databaseLogger.info("Connection pool successfully configured. ");
     } catch(Exception e) {
@@ -103,6 +156,61 @@ public class MysqlDatabase {
     }
   }
 
+  private void applySettings(HikariDataSource config, PoolSettings settings) {
+    config.setMaximumPoolSize(settings.getMaximumPoolSize());
+    config.setMinimumIdle(settings.getMinimumIdle());
+    config.setConnectionTimeout(settings.getConnectionTimeout());
+    config.setIdleTimeout(settings.getIdleTimeout());
+    config.setMaxLifetime(settings.getMaxLifetime());
+    config.setKeepaliveTime(settings.getKeepaliveTime());
+    config.setValidationTimeout(settings.getValidationTimeout());
+    config.setLeakDetectionThreshold(settings.getLeakDetectionThreshold());
+    config.setMetricsTrackerFactory(metricsTracker);
+  }
+
+  /**
+   * @return current state of the connection pool and the recent acquire times
+   */
+  public PoolStatistics getPoolStatistics() {
+    if(hikariDataSource == null && dataSource instanceof SharedDataSource) {
+      PoolStatistics statistics = ((SharedDataSource) dataSource).getPoolStatistics();
+      if(statistics != null) {
+        return statistics;
+      }
+    }
+    return metricsTracker.snapshot();
+  }
+
+  /**
+   * Registers a listener which receives the pool statistics on every {@link #publishMetrics()}
+   *
+   * @param listener the listener, called on the thread publishing the metrics
+   */
+  public void addMetricsListener(Consumer<PoolStatistics> listener) {
+    metricsListeners.add(listener);
+  }
+
+  public void removeMetricsListener(Consumer<PoolStatistics> listener) {
+    metricsListeners.remove(listener);
+  }
+
+  /**
+   * Takes a snapshot of the pool statistics and passes it to all metrics listeners
+   *
+   * @return the published statistics
+   */
+  public PoolStatistics publishMetrics() {
+    PoolStatistics statistics = getPoolStatistics();
+    for(Consumer<PoolStatistics> listener : metricsListeners) {
+      try {
+        listener.accept(statistics);
+      } catch(RuntimeException exception) {
+        databaseLogger.log(Level.WARNING, "Metrics listener failed", exception);
+      }
+    }
+    return statistics;
+  }
+
   public void executeUpdate(String query) {
     try(Connection connection = getConnection()) {
       if(connection != null) {
@@ -116,14 +224,156 @@ public class MysqlDatabase {
   }
 
 
+  /**
+   * @deprecated use {@link #query(String, ResultSetMapper, Object...)}
+   */
+  @Deprecated
   public ResultSet executeQuery(String query) {
     throw new UnsupportedOperationException("Queries should be created with own auto-closeable connection!");
   }
 
+  /**
+   * Executes an insert, update or delete statement, blocking
+   *
+   * @param query      sql with ? placeholders
+   * @param parameters values bound to the placeholders in order
+   * @return amount of changed rows
+   * @throws SQLException if no connection is available or the statement failed
+   */
+  public int update(String query, Object... parameters) throws SQLException {
+    try(Connection connection = requireConnection();
+        PreparedStatement statement = connection.prepareStatement(query)) {
+      bind(statement, parameters);
+      return statement.executeUpdate();
+    }
+  }
+
+  /**
+   * Executes a query and maps its result, blocking
+   *
+   * @param query      sql with ? placeholders
+   * @param mapper     reads the result set, it is closed afterwards
+   * @param parameters values bound to the placeholders in order
+   * @return the mapped result
+   * @throws SQLException if no connection is available or the query failed
+   */
+  public <T> T query(String query, ResultSetMapper<T> mapper, Object... parameters) throws SQLException {
+    try(Connection connection = requireConnection();
+        PreparedStatement statement = connection.prepareStatement(query)) {
+      bind(statement, parameters);
+      try(ResultSet resultSet = statement.executeQuery()) {
+        return mapper.map(resultSet);
+      }
+    }
+  }
+
+  /**
+   * Executes the statement once per parameter row as one JDBC batch in one transaction, blocking
+   *
+   * @param query sql with ? placeholders
+   * @param rows  values of every execution
+   * @return update counts of the executions
+   * @throws SQLException if no connection is available or the batch failed, nothing is written then
+   */
+  public int[] batch(String query, List<Object[]> rows) throws SQLException {
+    if(rows.isEmpty()) {
+      return new int[0];
+    }
+    try(Connection connection = requireConnection()) {
+      boolean autoCommit = connection.getAutoCommit();
+      connection.setAutoCommit(false);
+      try(PreparedStatement statement = connection.prepareStatement(query)) {
+        for(Object[] row : rows) {
+          bind(statement, row);
+          statement.addBatch();
+        }
+        int[] result = statement.executeBatch();
+        connection.commit();
+        return result;
+      } catch(SQLException exception) {
+        connection.rollback();
+        throw exception;
+      } finally {
+        connection.setAutoCommit(autoCommit);
+      }
+    }
+  }
+
+  public CompletableFuture<Integer> updateAsync(String query, Object... parameters) {
+    return supplyAsync(() -> update(query, parameters));
+  }
+
+  public <T> CompletableFuture<T> queryAsync(String query, ResultSetMapper<T> mapper, Object... parameters) {
+    return supplyAsync(() -> query(query, mapper, parameters));
+  }
+
+  public CompletableFuture<int[]> batchAsync(String query, List<Object[]> rows) {
+    return supplyAsync(() -> batch(query, rows));
+  }
+
+  /**
+   * Runs the call on the database executor. The executor is bounded by the pool size
+   * and its queue, the future fails with a {@link java.util.concurrent.RejectedExecutionException}
+   * if the database can't keep up.
+   */
+  private <T> CompletableFuture<T> supplyAsync(SqlCall<T> call) {
+    try {
+      return CompletableFuture.supplyAsync(() -> {
+        try {
+          return call.call();
+        } catch(SQLException exception) {
+          throw new CompletionException(exception);
+        }
+      }, executor);
+    } catch(RuntimeException exception) {
+      return CompletableFuture.failedFuture(exception);
+    }
+  }
+
+  private void bind(PreparedStatement statement, Object[] parameters) throws SQLException {
+    for(int i = 0; i < parameters.length; i++) {
+      statement.setObject(i + 1, parameters[i]);
+    }
+  }
+
+  private Connection requireConnection() throws SQLException {
+    Connection connection = getConnection();
+    if(connection == null) {
+      throw new SQLException("No database connection available");
+    }
+    return connection;
+  }
+
+  private ExecutorService createExecutor() {
+    return createExecutor(hikariDataSource == null ? 0 : hikariDataSource.getMaximumPoolSize());
+  }
+
+  private ExecutorService createExecutor(int poolSize) {
+    //the pool size is only validated by Hikari once the first connection is requested
+    int threads = poolSize < 1 ? 10 : poolSize;
+    AtomicInteger counter = new AtomicInteger();
+    ThreadPoolExecutor threadPool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(EXECUTOR_QUEUE_SIZE), runnable -> {
+      Thread thread = new Thread(runnable, "MiniGamesBox-Database-" + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    threadPool.allowCoreThreadTimeOut(true);
+    return threadPool;
+  }
+
+  @FunctionalInterface
+  private interface SqlCall<T> {
+    T call() throws SQLException;
+  }
+
   public void shutdownConnPool() {
     try {
       databaseLogger.info("Shutting down connection pool. Trying to close all connections.");
-      if(!hikariDataSource.isClosed()) {
+      executor.shutdown();
+      if(!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+        databaseLogger.warning("Timed out while waiting for running database tasks");
+      }
+      if(hikariDataSource != null && !hikariDataSource.isClosed()) {
         hikariDataSource.close();
         databaseLogger.info("Pool successfully shutdown. ");
       }
@@ -132,13 +382,76 @@ public class MysqlDatabase {
     }
   }
 
+  /**
+   * Get a connection of the pool. While the database is unreachable attempts are paused
+   * by a {@link CircuitBreaker} and null is returned right away.
+   * A full pool does not pause attempts, its timeouts are counted in the {@link PoolStatistics}.
+   *
+   * @return the connection or null if none is available
+   */
   public Connection getConnection() {
+    if(!circuitBreaker.tryAcquire()) {
+      return null;
+    }
     try {
-      return hikariDataSource.getConnection();
+      Connection connection = dataSource.getConnection();
+      if(circuitBreaker.recordSuccess()) {
+        databaseLogger.info("Database connection is available again");
+      }
+      return connection;
+    } catch(SQLTransientConnectionException e) {
+      if(!isConnectivityFailure(e)) {
+        //every connection of the pool is in use, the database itself is fine
+        circuitBreaker.recordInconclusive();
+        databaseLogger.log(Level.FINE, "Timed out while waiting for a pooled connection: {0}", e.getMessage());
+        return null;
+      }
+      recordFailure(e);
     } catch(Exception e) {
-      e.printStackTrace();
+      recordFailure(e);
     }
     return null;
   }
 
+  private void recordFailure(Exception e) {
+    if(circuitBreaker.recordFailure()) {
+      databaseLogger.log(Level.SEVERE, "Database is not reachable, pausing connection attempts", e);
+    } else {
+      databaseLogger.warning("Could not get a database connection: " + e.getMessage());
+    }
+  }
+
+  /**
+   * The pool reports the last failure of creating a connection as cause of its timeouts,
+   * without one the timeout only means that no connection got free in time
+   */
+  private static boolean isConnectivityFailure(SQLException exception) {
+    for(Throwable cause = exception.getCause(); cause != null; cause = cause.getCause()) {
+      if(cause instanceof SQLNonTransientConnectionException || cause instanceof SocketException
+        || cause instanceof UnknownHostException || "CommunicationsException".equals(cause.getClass().getSimpleName())) {
+        return true;
+      }
+      //SQL state class 08 is a connection exception
+      if(cause instanceof SQLException && ((SQLException) cause).getSQLState() != null && ((SQLException) cause).getSQLState().startsWith("08")) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return false while connection attempts are paused after failures
+   */
+  public boolean isAvailable() {
+    return circuitBreaker.getState() == CircuitBreaker.State.CLOSED;
+  }
+
+  public DataSource getDataSource() {
+    return dataSource;
+  }
+
+  public CircuitBreaker.State getCircuitState() {
+    return circuitBreaker.getState();
+  }
+
 }
@@ -0,0 +1,82 @@
+/*
+ *  MiniGamesBox - Library box with massive content that could be seen as minigames core.
+ *  Copyright (C) 2023 Plugily Projects - maintained by Tigerpanzer_02 and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package plugily.projects.minigamesbox.database;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the pool state and the last connection acquire times reported by HikariCP
+ */
+class PoolMetricsTracker implements MetricsTrackerFactory, IMetricsTracker {
+
+  private static final int SAMPLE_SIZE = 1024;
+
+  private final long[] acquireNanos = new long[SAMPLE_SIZE];
+  private final LongAdder timeouts = new LongAdder();
+  private int samples = 0;
+  private int next = 0;
+  private volatile PoolStats poolStats;
+
+  @Override
+  public IMetricsTracker create(String poolName, PoolStats poolStats) {
+    this.poolStats = poolStats;
+    return this;
+  }
+
+  @Override
+  public synchronized void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+    acquireNanos[next] = elapsedAcquiredNanos;
+    next = (next + 1) % SAMPLE_SIZE;
+    samples = Math.min(SAMPLE_SIZE, samples + 1);
+  }
+
+  @Override
+  public void recordConnectionTimeout() {
+    timeouts.increment();
+  }
+
+  PoolStatistics snapshot() {
+    long[] sorted;
+    synchronized(this) {
+      sorted = Arrays.copyOf(acquireNanos, samples);
+    }
+    Arrays.sort(sorted);
+    PoolStats stats = poolStats;
+    if(stats == null) {
+      return new PoolStatistics(0, 0, 0, 0, 0, timeouts.sum(), percentile(sorted, 0.5), percentile(sorted, 0.95), percentile(sorted, 0.99));
+    }
+    return new PoolStatistics(stats.getActiveConnections(), stats.getIdleConnections(), stats.getTotalConnections(), stats.getMaxConnections(),
+      stats.getPendingThreads(), timeouts.sum(), percentile(sorted, 0.5), percentile(sorted, 0.95), percentile(sorted, 0.99));
+  }
+
+  private double percentile(long[] sorted, double percentile) {
+    if(sorted.length == 0) {
+      return 0;
+    }
+    int index = (int) Math.ceil(percentile * sorted.length) - 1;
+    return sorted[Math.max(0, index)] / 1_000_000.0;
+  }
+
+}
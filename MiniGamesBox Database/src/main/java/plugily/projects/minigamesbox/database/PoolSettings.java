@@ -0,0 +1,137 @@
+/*
+ *  MiniGamesBox - Library box with massive content that could be seen as minigames core.
+ *  Copyright (C) 2023 Plugily Projects - maintained by Tigerpanzer_02 and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package plugily.projects.minigamesbox.database;
+
+/**
+ * Settings of the HikariCP connection pool, see
+ * https://github.com/brettwooldridge/HikariCP#frequently-used for their meaning
+ */
+public class PoolSettings {
+
+  private int maximumPoolSize = 10;
+  private int minimumIdle = 10;
+  private long connectionTimeout = 30000;
+  private long idleTimeout = 600000;
+  private long maxLifetime = 1800000;
+  private long keepaliveTime = 0;
+  private long validationTimeout = 5000;
+  private long leakDetectionThreshold = 0;
+  private int failureThreshold = 3;
+  private long circuitOpenTime = 30000;
+
+  public int getMaximumPoolSize() {
+    return maximumPoolSize;
+  }
+
+  public PoolSettings setMaximumPoolSize(int maximumPoolSize) {
+    this.maximumPoolSize = maximumPoolSize;
+    return this;
+  }
+
+  public int getMinimumIdle() {
+    return minimumIdle;
+  }
+
+  public PoolSettings setMinimumIdle(int minimumIdle) {
+    this.minimumIdle = minimumIdle;
+    return this;
+  }
+
+  public long getConnectionTimeout() {
+    return connectionTimeout;
+  }
+
+  public PoolSettings setConnectionTimeout(long connectionTimeout) {
+    this.connectionTimeout = connectionTimeout;
+    return this;
+  }
+
+  public long getIdleTimeout() {
+    return idleTimeout;
+  }
+
+  public PoolSettings setIdleTimeout(long idleTimeout) {
+    this.idleTimeout = idleTimeout;
+    return this;
+  }
+
+  public long getMaxLifetime() {
+    return maxLifetime;
+  }
+
+  public PoolSettings setMaxLifetime(long maxLifetime) {
+    this.maxLifetime = maxLifetime;
+    return this;
+  }
+
+  public long getKeepaliveTime() {
+    return keepaliveTime;
+  }
+
+  public PoolSettings setKeepaliveTime(long keepaliveTime) {
+    this.keepaliveTime = keepaliveTime;
+    return this;
+  }
+
+  public long getValidationTimeout() {
+    return validationTimeout;
+  }
+
+  public PoolSettings setValidationTimeout(long validationTimeout) {
+    this.validationTimeout = validationTimeout;
+    return this;
+  }
+
+  public long getLeakDetectionThreshold() {
+    return leakDetectionThreshold;
+  }
+
+  /**
+   * @param leakDetectionThreshold milliseconds a connection may be borrowed before a leak is logged, 0 disables it
+   */
+  public PoolSettings setLeakDetectionThreshold(long leakDetectionThreshold) {
+    this.leakDetectionThreshold = leakDetectionThreshold;
+    return this;
+  }
+
+  public int getFailureThreshold() {
+    return failureThreshold;
+  }
+
+  /**
+   * @param failureThreshold failed connection attempts in a row until attempts are paused, see {@link CircuitBreaker}
+   */
+  public PoolSettings setFailureThreshold(int failureThreshold) {
+    this.failureThreshold = failureThreshold;
+    return this;
+  }
+
+  public long getCircuitOpenTime() {
+    return circuitOpenTime;
+  }
+
+  /**
+   * @param circuitOpenTime milliseconds connection attempts are paused before the next try
+   */
+  public PoolSettings setCircuitOpenTime(long circuitOpenTime) {
+    this.circuitOpenTime = circuitOpenTime;
+    return this;
+  }
+
+}
@@ -0,0 +1,101 @@
+/*
+ *  MiniGamesBox - Library box with massive content that could be seen as minigames core.
+ *  Copyright (C) 2023 Plugily Projects - maintained by Tigerpanzer_02 and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package plugily.projects.minigamesbox.database;
+
+/**
+ * Snapshot of the connection pool state and of the recent connection acquire times
+ */
+public class PoolStatistics {
+
+  private final int activeConnections;
+  private final int idleConnections;
+  private final int totalConnections;
+  private final int maxConnections;
+  private final int waitingThreads;
+  private final long timeouts;
+  private final double acquireP50;
+  private final double acquireP95;
+  private final double acquireP99;
+
+  public PoolStatistics(int activeConnections, int idleConnections, int totalConnections, int maxConnections, int waitingThreads,
+                        long timeouts, double acquireP50, double acquireP95, double acquireP99) {
+    this.activeConnections = activeConnections;
+    this.idleConnections = idleConnections;
+    this.totalConnections = totalConnections;
+    this.maxConnections = maxConnections;
+    this.waitingThreads = waitingThreads;
+    this.timeouts = timeouts;
+    this.acquireP50 = acquireP50;
+    this.acquireP95 = acquireP95;
+    this.acquireP99 = acquireP99;
+  }
+
+  public int getActiveConnections() {
+    return activeConnections;
+  }
+
+  public int getIdleConnections() {
+    return idleConnections;
+  }
+
+  public int getTotalConnections() {
+    return totalConnections;
+  }
+
+  public int getMaxConnections() {
+    return maxConnections;
+  }
+
+  /**
+   * @return threads currently waiting for a connection, above 0 means the pool is exhausted
+   */
+  public int getWaitingThreads() {
+    return waitingThreads;
+  }
+
+  /**
+   * @return amount of connection requests which timed out since start
+   */
+  public long getTimeouts() {
+    return timeouts;
+  }
+
+  /**
+   * @return median connection acquire time in milliseconds
+   */
+  public double getAcquireP50() {
+    return acquireP50;
+  }
+
+  public double getAcquireP95() {
+    return acquireP95;
+  }
+
+  public double getAcquireP99() {
+    return acquireP99;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("active=%d idle=%d total=%d/%d waiting=%d timeouts=%d acquire p50=%.2fms p95=%.2fms p99=%.2fms",
+      activeConnections, idleConnections, totalConnections, maxConnections, waitingThreads, timeouts, acquireP50, acquireP95, acquireP99);
+  }
+
+}
@@ -0,0 +1,214 @@
+/*
+ *  MiniGamesBox - Library box with massive content that could be seen as minigames core.
+ *  Copyright (C) 2023 Plugily Projects - maintained by Tigerpanzer_02 and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package plugily.projects.minigamesbox.database;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Handle of a connection pool which is shared between plugins.
+ * <p>
+ * Every plugin shades and relocates this library, so handles of other plugins are only
+ * used through JDK types: {@link DataSource} to get connections, {@link Supplier#get()}
+ * returns the key of the pool (jdbc url and user) and {@link Closeable#close()} shuts the pool down.
+ * {@link DataSource#unwrap(Class)} returns the handle of the plugin owning the pool.
+ * <p>
+ * The classes of the pool are loaded by its owner and unloaded with it, so an owner which stops
+ * hands the pool over: {@link Runnable#run()} lets a borrowing handle create its own pool and
+ * {@link Consumer#accept(Object)} moves the other borrowing handles to the handle of the new owner.
+ */
+public class SharedDataSource implements DataSource, Closeable, Supplier<String>, Runnable, Consumer<DataSource> {
+
+  private final String key;
+  //creates a pool of this plugin once the owner hands the pool over, null for owners
+  private final Supplier<MysqlDatabase> factory;
+  private volatile boolean owner;
+  private volatile DataSource pool;
+  private volatile Closeable closer;
+  private volatile Supplier<PoolStatistics> statistics;
+
+  /**
+   * Handle of a pool owned by the given database
+   *
+   * @param jdbcUrl  the jdbc url of the pool
+   * @param user     the user of the pool
+   * @param database the database owning the pool
+   */
+  public SharedDataSource(String jdbcUrl, String user, MysqlDatabase database) {
+    this.key = createKey(jdbcUrl, user);
+    this.factory = null;
+    own(database);
+  }
+
+  /**
+   * Handle of a pool owned by another plugin
+   *
+   * @param provider the handle of the owner, see {@link #isSharedPool(Object)}
+   * @param factory  creates the pool of this plugin if the owner hands the pool over
+   */
+  public SharedDataSource(DataSource provider, Supplier<MysqlDatabase> factory) {
+    if(!isSharedPool(provider)) {
+      throw new IllegalArgumentException("Not a shared connection pool " + provider.getClass().getName());
+    }
+    this.key = String.valueOf(((Supplier<?>) provider).get());
+    this.factory = factory;
+    borrow(provider);
+  }
+
+  public static String createKey(String jdbcUrl, String user) {
+    return jdbcUrl + "|" + user;
+  }
+
+  public static boolean isSharedPool(Object provider) {
+    return provider instanceof DataSource && provider instanceof Closeable && provider instanceof Supplier
+      && provider instanceof Runnable && provider instanceof Consumer;
+  }
+
+  private void own(MysqlDatabase database) {
+    pool = database.getDataSource();
+    closer = database::shutdownConnPool;
+    statistics = database::getPoolStatistics;
+    owner = true;
+  }
+
+  private void borrow(DataSource provider) {
+    pool = provider;
+    closer = (Closeable) provider;
+    //statistics are only known for handles of the same library
+    statistics = provider instanceof SharedDataSource ? ((SharedDataSource) provider)::getPoolStatistics : () -> null;
+    owner = false;
+  }
+
+  /**
+   * @return true if the pool was created by the plugin of this handle
+   */
+  public boolean isOwner() {
+    return owner;
+  }
+
+  /**
+   * Creates the pool of this plugin as the owner of the pool stops, does nothing for owners
+   */
+  @Override
+  public synchronized void run() {
+    if(!owner) {
+      own(factory.get());
+    }
+  }
+
+  /**
+   * Uses the pool of a new owner as the owner of the pool stops, does nothing for owners
+   *
+   * @param provider the handle of the new owner
+   */
+  @Override
+  public synchronized void accept(DataSource provider) {
+    if(!owner) {
+      borrow(provider);
+    }
+  }
+
+  /**
+   * @return statistics of the pool or null if they are not available
+   */
+  public PoolStatistics getPoolStatistics() {
+    return statistics.get();
+  }
+
+  /**
+   * @return the key of the pool, jdbc url and user
+   */
+  @Override
+  public String get() {
+    return key;
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    Connection connection = pool.getConnection();
+    if(connection == null) {
+      throw new SQLException("Shared MySQL connection pool is not available");
+    }
+    return connection;
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    throw new SQLFeatureNotSupportedException("Shared pools use the credentials of their owner");
+  }
+
+  /**
+   * Shuts down the shared pool, only call it once no plugin uses the pool anymore or after it was handed over
+   */
+  @Override
+  public void close() throws IOException {
+    closer.close();
+  }
+
+  @Override
+  public PrintWriter getLogWriter() {
+    return null;
+  }
+
+  @Override
+  public void setLogWriter(PrintWriter out) {
+  }
+
+  @Override
+  public void setLoginTimeout(int seconds) {
+  }
+
+  @Override
+  public int getLoginTimeout() {
+    return 0;
+  }
+
+  @Override
+  public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+    throw new SQLFeatureNotSupportedException();
+  }
+
+  @Override
+  public <T> T unwrap(Class<T> iface) throws SQLException {
+    if(!owner) {
+      return pool.unwrap(iface);
+    }
+    if(iface.isInstance(this)) {
+      return iface.cast(this);
+    }
+    throw new SQLException("Not a wrapper for " + iface.getName());
+  }
+
+  @Override
+  public boolean isWrapperFor(Class<?> iface) throws SQLException {
+    if(!owner) {
+      return pool.isWrapperFor(iface);
+    }
+    return iface.isInstance(this);
+  }
+
+}
@@ -0,0 +1,255 @@
+/*
+ *  MiniGamesBox - Library box with massive content that could be seen as minigames core.
+ *  Copyright (C) 2023 Plugily Projects - maintained by Tigerpanzer_02 and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package plugily.projects.minigamesbox.sorter;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Ranking of keys by an int score, ordered by score descending and key ascending for equal scores.
+ * The key order can be replaced e.g. to match the order of another storage.
+ * <p>
+ * Backed by an indexable skip list, updates and rank lookups take O(log n),
+ * reading k entries from any offset takes O(log n + k). Not thread safe.
+ *
+ * @param <K> the key type e.g. player UUID
+ */
+public class RankIndex<K extends Comparable<K>> {
+
+  private static final int MAX_LEVEL = 32;
+  private static final double LEVEL_PROBABILITY = 0.25;
+
+  private final Node<K> head = new Node<>(null, 0, MAX_LEVEL);
+  private final Map<K, Node<K>> nodes = new HashMap<>();
+  private final Comparator<? super K> keyOrder;
+  private int level = 1;
+
+  public RankIndex() {
+    this(Comparator.naturalOrder());
+  }
+
+  /**
+   * @param keyOrder order of keys with equal scores
+   */
+  public RankIndex(Comparator<? super K> keyOrder) {
+    this.keyOrder = keyOrder;
+  }
+
+  /**
+   * Inserts the key or moves it to the position of its new score
+   *
+   * @param key   the key
+   * @param score the new score
+   */
+  public void update(K key, int score) {
+    Node<K> existing = nodes.get(key);
+    if(existing != null) {
+      if(existing.score == score) {
+        return;
+      }
+      delete(existing);
+    }
+    insert(key, score);
+  }
+
+  public void remove(K key) {
+    Node<K> existing = nodes.get(key);
+    if(existing != null) {
+      delete(existing);
+    }
+  }
+
+  public boolean contains(K key) {
+    return nodes.containsKey(key);
+  }
+
+  /**
+   * @param key the key
+   * @return score of the key, null if not ranked
+   */
+  public Integer getScore(K key) {
+    Node<K> node = nodes.get(key);
+    return node == null ? null : node.score;
+  }
+
+  /**
+   * @param key the key
+   * @return position starting at 1 for the highest score, 0 if not ranked
+   */
+  public int getRank(K key) {
+    Node<K> node = nodes.get(key);
+    if(node == null) {
+      return 0;
+    }
+    int rank = 0;
+    Node<K> current = head;
+    for(int i = level - 1; i >= 0; i--) {
+      while(current.forward[i] != null && (current.forward[i] == node || precedes(current.forward[i], node.score, node.key))) {
+        rank += current.span[i];
+        current = current.forward[i];
+      }
+      if(current == node) {
+        return rank;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * @param limit  maximum amount of entries
+   * @param offset amount of top entries to skip
+   * @return entries ordered from highest to lowest score
+   */
+  public List<Map.Entry<K, Integer>> getTop(int limit, int offset) {
+    List<Map.Entry<K, Integer>> top = new ArrayList<>(Math.max(0, Math.min(limit, size() - offset)));
+    if(limit <= 0 || offset < 0 || offset >= size()) {
+      return top;
+    }
+    Node<K> current = getByRank(offset + 1);
+    while(current != null && top.size() < limit) {
+      top.add(new AbstractMap.SimpleImmutableEntry<>(current.key, current.score));
+      current = current.forward[0];
+    }
+    return top;
+  }
+
+  public int size() {
+    return nodes.size();
+  }
+
+  public void clear() {
+    nodes.clear();
+    for(int i = 0; i < MAX_LEVEL; i++) {
+      head.forward[i] = null;
+      head.span[i] = 0;
+    }
+    level = 1;
+  }
+
+  private Node<K> getByRank(int rank) {
+    int traversed = 0;
+    Node<K> current = head;
+    for(int i = level - 1; i >= 0; i--) {
+      while(current.forward[i] != null && traversed + current.span[i] <= rank) {
+        traversed += current.span[i];
+        current = current.forward[i];
+      }
+      if(traversed == rank) {
+        return current;
+      }
+    }
+    return null;
+  }
+
+  private boolean precedes(Node<K> node, int score, K key) {
+    return node.score > score || (node.score == score && keyOrder.compare(node.key, key) < 0);
+  }
+
+  private void insert(K key, int score) {
+    @SuppressWarnings("unchecked")
+    Node<K>[] update = Node.newArray(MAX_LEVEL);
+    int[] rank = new int[MAX_LEVEL];
+    Node<K> current = head;
+    for(int i = level - 1; i >= 0; i--) {
+      rank[i] = i == level - 1 ? 0 : rank[i + 1];
+      while(current.forward[i] != null && precedes(current.forward[i], score, key)) {
+        rank[i] += current.span[i];
+        current = current.forward[i];
+      }
+      update[i] = current;
+    }
+    int nodeLevel = randomLevel();
+    if(nodeLevel > level) {
+      for(int i = level; i < nodeLevel; i++) {
+        rank[i] = 0;
+        update[i] = head;
+        head.span[i] = nodes.size();
+      }
+      level = nodeLevel;
+    }
+    Node<K> node = new Node<>(key, score, nodeLevel);
+    for(int i = 0; i < nodeLevel; i++) {
+      node.forward[i] = update[i].forward[i];
+      update[i].forward[i] = node;
+      node.span[i] = update[i].span[i] - (rank[0] - rank[i]);
+      update[i].span[i] = (rank[0] - rank[i]) + 1;
+    }
+    for(int i = nodeLevel; i < level; i++) {
+      update[i].span[i]++;
+    }
+    nodes.put(key, node);
+  }
+
+  private void delete(Node<K> node) {
+    @SuppressWarnings("unchecked")
+    Node<K>[] update = Node.newArray(MAX_LEVEL);
+    Node<K> current = head;
+    for(int i = level - 1; i >= 0; i--) {
+      while(current.forward[i] != null && precedes(current.forward[i], node.score, node.key)) {
+        current = current.forward[i];
+      }
+      update[i] = current;
+    }
+    for(int i = 0; i < level; i++) {
+      if(update[i].forward[i] == node) {
+        update[i].span[i] += node.span[i] - 1;
+        update[i].forward[i] = node.forward[i];
+      } else {
+        update[i].span[i]--;
+      }
+    }
+    while(level > 1 && head.forward[level - 1] == null) {
+      level--;
+    }
+    nodes.remove(node.key);
+  }
+
+  private int randomLevel() {
+    int nodeLevel = 1;
+    while(nodeLevel < MAX_LEVEL && ThreadLocalRandom.current().nextDouble() < LEVEL_PROBABILITY) {
+      nodeLevel++;
+    }
+    return nodeLevel;
+  }
+
+  private static final class Node<K> {
+
+    private final K key;
+    private final int score;
+    private final Node<K>[] forward;
+    private final int[] span;
+
+    private Node(K key, int score, int level) {
+      this.key = key;
+      this.score = score;
+      this.forward = newArray(level);
+      this.span = new int[level];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K> Node<K>[] newArray(int length) {
+      return (Node<K>[]) new Node<?>[length];
+    }
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ *  MiniGamesBox - Library box with massive content that could be seen as minigames core.
+ *  Copyright (C) 2023 Plugily Projects - maintained by Tigerpanzer_02 and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package plugily.projects.minigamesbox.sorter;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Collects the best entries of a stream of key value pairs with a bounded heap,
+ * ordered by value descending and key ascending for equal values, the key order can be replaced.
+ * Memory stays at limit + offset entries no matter how many values are offered.
+ *
+ * @param <K> the key type e.g. player UUID
+ */
+public class TopCollector<K extends Comparable<K>> {
+
+  private final Comparator<Map.Entry<K, Integer>> ranking;
+  private final int limit;
+  private final int offset;
+  //worst kept entry on top so it can be replaced
+  private final PriorityQueue<Map.Entry<K, Integer>> heap;
+
+  public TopCollector(int limit, int offset) {
+    this(limit, offset, Comparator.naturalOrder());
+  }
+
+  /**
+   * @param limit    maximum amount of collected entries
+   * @param offset   amount of best entries to skip
+   * @param keyOrder order of keys with equal values
+   */
+  public TopCollector(int limit, int offset, Comparator<? super K> keyOrder) {
+    this.ranking = Comparator.<Map.Entry<K, Integer>>comparingInt(Map.Entry::getValue).reversed()
+        .thenComparing(Map.Entry::getKey, keyOrder);
+    this.limit = Math.max(0, limit);
+    this.offset = Math.max(0, offset);
+    this.heap = new PriorityQueue<>(Math.max(1, this.limit + this.offset), ranking.reversed());
+  }
+
+  public void offer(K key, int value) {
+    int capacity = limit + offset;
+    if(capacity == 0) {
+      return;
+    }
+    Map.Entry<K, Integer> entry = new AbstractMap.SimpleImmutableEntry<>(key, value);
+    if(heap.size() < capacity) {
+      heap.add(entry);
+    } else if(ranking.compare(entry, heap.peek()) < 0) {
+      heap.poll();
+      heap.add(entry);
+    }
+  }
+
+  /**
+   * @return collected entries from highest to lowest value without the skipped offset
+   */
+  public List<Map.Entry<K, Integer>> getResult() {
+    List<Map.Entry<K, Integer>> sorted = new ArrayList<>(heap);
+    sorted.sort(ranking);
+    if(offset >= sorted.size()) {
+      return new ArrayList<>();
+    }
+    return new ArrayList<>(sorted.subList(offset, sorted.size()));
+  }
+}